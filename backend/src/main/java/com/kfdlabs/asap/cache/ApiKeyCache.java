@@ -0,0 +1,106 @@
+package com.kfdlabs.asap.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kfdlabs.asap.entity.ApiKeyScope;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Array;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * API keys by prefix, so authenticating a request with a known key needs no database access.
+ * <p>
+ * Unknown prefixes are cached too, which keeps random keys from reaching the database more than
+ * once per TTL. Creating or revoking a key evicts its prefix on every node through the
+ * {@link CacheInvalidationBus} once the change commits.
+ */
+@Component
+public class ApiKeyCache {
+
+    private static final String TOPIC = "api-keys";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheInvalidationBus invalidationBus;
+
+    private final Cache<String, Optional<ResolvedApiKey>> keys;
+
+    public ApiKeyCache(JdbcTemplate jdbcTemplate,
+                       CacheInvalidationBus invalidationBus,
+                       MeterRegistry meterRegistry,
+                       @Value("${api-key.cache.max-size:10000}") long maxSize,
+                       @Value("${api-key.cache.ttl:10m}") Duration ttl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.invalidationBus = invalidationBus;
+        this.keys = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, keys, "apiKeys");
+        invalidationBus.subscribe(TOPIC, this::evict);
+    }
+
+    public record ResolvedApiKey(UUID id, UUID organizationId, String keyHash, Set<ApiKeyScope> scopes,
+                                 LocalDateTime expiresAt, LocalDateTime revokedAt) {
+
+        public boolean isUsable(LocalDateTime now) {
+            return revokedAt == null && (expiresAt == null || expiresAt.isAfter(now));
+        }
+    }
+
+    public Optional<ResolvedApiKey> get(String prefix) {
+        return keys.get(prefix, this::load);
+    }
+
+    public void invalidate(String prefix) {
+        invalidationBus.publish(TOPIC, prefix);
+    }
+
+    private Optional<ResolvedApiKey> load(String prefix) {
+        List<ResolvedApiKey> found = jdbcTemplate.query(
+                "SELECT id, organization_id, key_hash, scopes, expires_at, revoked_at FROM fn_find_api_key(?)",
+                (rs, rowNum) -> new ResolvedApiKey(
+                        rs.getObject("id", UUID.class),
+                        rs.getObject("organization_id", UUID.class),
+                        rs.getString("key_hash"),
+                        scopes(rs.getArray("scopes")),
+                        toLocalDateTime(rs.getTimestamp("expires_at")),
+                        toLocalDateTime(rs.getTimestamp("revoked_at"))),
+                prefix);
+        return found.stream().findFirst();
+    }
+
+    private static Set<ApiKeyScope> scopes(Array array) throws SQLException {
+        Set<ApiKeyScope> scopes = EnumSet.noneOf(ApiKeyScope.class);
+        if (array != null) {
+            Arrays.stream((String[]) array.getArray()).map(ApiKeyScope::fromString).forEach(scopes::add);
+        }
+        return scopes;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private void evict(String key) {
+        if (CacheInvalidationBus.ALL.equals(key)) {
+            keys.invalidateAll();
+        } else {
+            keys.invalidate(key);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.kfdlabs.asap.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Cross-node invalidation for in-memory caches over Postgres LISTEN/NOTIFY.
+ * <p>
+ * {@link #publish} evicts locally right away and sends a NOTIFY through the caller's
+ * connection, so other nodes (and this one, again) only hear about it once the writing
+ * transaction commits. Each node keeps one dedicated listening connection outside the pool;
+ * whenever it (re)connects, every subscriber is flushed since notifications may have been missed.
+ * <p>
+ * Keys published inside a transaction are remembered until it completes, so caches can tell
+ * through {@link #isPending} that the caller may see uncommitted changes for a key and must not
+ * cache what it loads for it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheInvalidationBus {
+
+    /** Key that tells a subscriber to drop everything it holds. */
+    public static final String ALL = "*";
+
+    private static final String CHANNEL = "asap_cache_invalidation";
+    private static final long RECONNECT_DELAY_MS = 5_000;
+    private static final Object PENDING_RESOURCE = CacheInvalidationBus.class.getName() + ".pending";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+
+    private final Map<String, List<Consumer<String>>> subscribers = new ConcurrentHashMap<>();
+    private volatile boolean running;
+    private Thread listener;
+
+    public void subscribe(String topic, Consumer<String> onInvalidate) {
+        subscribers.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(onInvalidate);
+    }
+
+    public void publish(String topic, String key) {
+        markPending(topic, key);
+        dispatch(topic, key);
+        broadcast(topic, key);
+    }
+
+    /** Whether the current transaction published {@code key} on {@code topic} and has not completed yet. */
+    @SuppressWarnings("unchecked")
+    public boolean isPending(String topic, String key) {
+        Set<String> pending = (Set<String>) TransactionSynchronizationManager.getResource(PENDING_RESOURCE);
+        return pending != null && pending.contains(topic + "|" + key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void markPending(String topic, String key) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        Set<String> pending = (Set<String>) TransactionSynchronizationManager.getResource(PENDING_RESOURCE);
+        if (pending == null) {
+            pending = ConcurrentHashMap.newKeySet();
+            TransactionSynchronizationManager.bindResource(PENDING_RESOURCE, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_RESOURCE);
+                }
+            });
+        }
+        pending.add(topic + "|" + key);
+    }
+
+    /**
+     * Only sends the NOTIFY, for caches that keep themselves consistent on the writing node
+     * (such as the Hibernate second-level cache) and just need the other nodes to evict.
+     */
+    public void broadcast(String topic, String key) {
+        try {
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL, topic + "|" + key);
+        } catch (Exception e) {
+            // Other nodes fall back to their cache TTL
+            log.warn("Failed to broadcast invalidation {}|{}", topic, key, e);
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        listener = Thread.ofPlatform().daemon().name("cache-invalidation-listener").start(this::listen);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (listener != null) listener.interrupt();
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                subscribers.forEach((topic, handlers) -> dispatch(topic, ALL));
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(1_000);
+                    if (notifications == null) continue;
+                    for (PGNotification notification : notifications) {
+                        String payload = notification.getParameter();
+                        int separator = payload.indexOf('|');
+                        if (separator > 0) {
+                            dispatch(payload.substring(0, separator), payload.substring(separator + 1));
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) return;
+                log.warn("Cache invalidation listener disconnected, retrying in {} ms", RECONNECT_DELAY_MS, e);
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void dispatch(String topic, String key) {
+        for (Consumer<String> handler : subscribers.getOrDefault(topic, List.of())) {
+            try {
+                handler.accept(key);
+            } catch (Exception e) {
+                log.error("Cache invalidation handler for {} failed", topic, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.kfdlabs.asap.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kfdlabs.asap.entity.CustomFieldDefinition;
+import com.kfdlabs.asap.entity.CustomFieldGroup;
+import com.kfdlabs.asap.entity.CustomFieldGroupMember;
+import com.kfdlabs.asap.repository.CustomFieldDefinitionRepository;
+import com.kfdlabs.asap.repository.CustomFieldGroupMemberRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Per-organization snapshot of custom field definitions and group membership.
+ * <p>
+ * Definitions change rarely but are read on every filtered search, value write and group
+ * response, so the whole set for an organization is loaded at once and kept until it expires or
+ * {@link #invalidate} is called by a write in {@code CustomFieldService} on any node.
+ * Snapshots are read on the caller's transaction, so a miss needs no second connection, and hold
+ * detached copies shared between requests: treat them as read-only. A transaction that has
+ * invalidated the organization reads around the cache until it completes.
+ */
+@Component
+public class CustomFieldCache {
+
+    private static final String TOPIC = "custom-fields";
+
+    private final CustomFieldDefinitionRepository definitionRepository;
+    private final CustomFieldGroupMemberRepository memberRepository;
+    private final CacheInvalidationBus invalidationBus;
+    private final Cache<UUID, Snapshot> snapshots;
+
+    public CustomFieldCache(CustomFieldDefinitionRepository definitionRepository,
+                            CustomFieldGroupMemberRepository memberRepository,
+                            CacheInvalidationBus invalidationBus,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.custom-fields.cache.max-organizations:10000}") long maxOrganizations,
+                            @Value("${app.custom-fields.cache.ttl:10m}") Duration ttl) {
+        this.definitionRepository = definitionRepository;
+        this.memberRepository = memberRepository;
+        this.invalidationBus = invalidationBus;
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(maxOrganizations)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, snapshots, "customFieldDefinitions");
+        invalidationBus.subscribe(TOPIC, this::evict);
+    }
+
+    public Optional<CustomFieldDefinition> getDefinition(UUID orgId, UUID definitionId) {
+        return Optional.ofNullable(snapshot(orgId).definitions().get(definitionId));
+    }
+
+    /** All definitions of the organization in display order. */
+    public List<CustomFieldDefinition> getDefinitions(UUID orgId) {
+        return snapshot(orgId).definitions().values().stream()
+                .sorted(Comparator.comparing(CustomFieldDefinition::getDisplayOrder)
+                        .thenComparing(CustomFieldDefinition::getFieldKey))
+                .toList();
+    }
+
+    public Optional<CustomFieldDefinition> getDefinitionByKey(UUID orgId, String fieldKey) {
+        return Optional.ofNullable(snapshot(orgId).definitionsByKey().get(fieldKey));
+    }
+
+    public List<CustomFieldGroupMember> getGroupMembers(UUID orgId, UUID groupId) {
+        return snapshot(orgId).membersByGroup().getOrDefault(groupId, List.of());
+    }
+
+    /** Drops the organization's snapshot here now, and on every node once the current transaction commits. */
+    public void invalidate(UUID orgId) {
+        invalidationBus.publish(TOPIC, orgId.toString());
+    }
+
+    private void evict(String key) {
+        if (CacheInvalidationBus.ALL.equals(key)) {
+            snapshots.invalidateAll();
+        } else {
+            snapshots.invalidate(UUID.fromString(key));
+        }
+    }
+
+    private Snapshot snapshot(UUID orgId) {
+        // The caller's own uncommitted changes must not end up in the shared snapshot
+        if (invalidationBus.isPending(TOPIC, orgId.toString())) {
+            return load(orgId);
+        }
+        return snapshots.get(orgId, this::load);
+    }
+
+    private Snapshot load(UUID orgId) {
+        Map<UUID, CustomFieldDefinition> definitions = definitionRepository.findByOrganizationId(orgId).stream()
+                .map(CustomFieldCache::copy)
+                .collect(Collectors.toUnmodifiableMap(CustomFieldDefinition::getId, Function.identity()));
+        Map<UUID, List<CustomFieldGroupMember>> membersByGroup = memberRepository.findByOrganizationIdOrderByDisplayOrder(orgId)
+                .stream()
+                .map(member -> copy(member, definitions))
+                .collect(Collectors.groupingBy(m -> m.getCustomFieldGroup().getId(),
+                        Collectors.toUnmodifiableList()));
+        Map<String, CustomFieldDefinition> definitionsByKey = definitions.values().stream()
+                .collect(Collectors.toUnmodifiableMap(CustomFieldDefinition::getFieldKey, Function.identity()));
+        return new Snapshot(definitions, definitionsByKey, Map.copyOf(membersByGroup));
+    }
+
+    // Copies keep the caller's managed instances out of the shared snapshot
+    private static CustomFieldDefinition copy(CustomFieldDefinition source) {
+        CustomFieldDefinition copy = new CustomFieldDefinition();
+        copy.setId(source.getId());
+        copy.setOrganizationId(source.getOrganizationId());
+        copy.setFieldKey(source.getFieldKey());
+        copy.setFieldLabel(source.getFieldLabel());
+        copy.setFieldType(source.getFieldType());
+        copy.setIsRequired(source.getIsRequired());
+        copy.setOptions(source.getOptions() != null ? new ArrayList<>(source.getOptions()) : null);
+        copy.setDisplayOrder(source.getDisplayOrder());
+        copy.setUiConfig(source.getUiConfig() != null ? new LinkedHashMap<>(source.getUiConfig()) : null);
+        copy.setCreatedAt(source.getCreatedAt());
+        copy.setUpdatedAt(source.getUpdatedAt());
+        return copy;
+    }
+
+    private static CustomFieldGroupMember copy(CustomFieldGroupMember source, Map<UUID, CustomFieldDefinition> definitions) {
+        CustomFieldGroupMember copy = new CustomFieldGroupMember();
+        copy.setId(source.getId());
+        copy.setOrganizationId(source.getOrganizationId());
+        // Only the group's id is read from the snapshot
+        CustomFieldGroup group = new CustomFieldGroup();
+        group.setId(source.getCustomFieldGroup().getId());
+        copy.setCustomFieldGroup(group);
+        CustomFieldDefinition definition = definitions.get(source.getCustomFieldDefinition().getId());
+        copy.setCustomFieldDefinition(definition != null ? definition : copy(source.getCustomFieldDefinition()));
+        copy.setDisplayOrder(source.getDisplayOrder());
+        return copy;
+    }
+
+    private record Snapshot(Map<UUID, CustomFieldDefinition> definitions,
+                            Map<String, CustomFieldDefinition> definitionsByKey,
+                            Map<UUID, List<CustomFieldGroupMember>> membersByGroup) {}
+}
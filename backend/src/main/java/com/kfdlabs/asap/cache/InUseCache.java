@@ -0,0 +1,127 @@
+package com.kfdlabs.asap.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kfdlabs.asap.entity.Tag;
+import com.kfdlabs.asap.repository.CustomFieldValueRepository;
+import com.kfdlabs.asap.repository.EntityTagRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Per-(organization, entity type) cache of the tags and custom fields that are actually used,
+ * which back the filter sidebars and are requested on every list page load.
+ * <p>
+ * Entries are dropped for the whole organization by writes that add or remove tag links, custom
+ * field values or group membership, on every node through the {@link CacheInvalidationBus}.
+ * Entries are read on the caller's transaction, so a miss needs no second connection; cached tags
+ * are detached copies shared between requests: treat them as read-only. A transaction that has
+ * invalidated the organization reads around the cache until it completes.
+ */
+@Component
+public class InUseCache {
+
+    private static final String FIELDS_TOPIC = "in-use-fields";
+    private static final String TAGS_TOPIC = "in-use-tags";
+
+    private final CustomFieldValueRepository cfvRepository;
+    private final EntityTagRepository entityTagRepository;
+    private final CacheInvalidationBus invalidationBus;
+
+    private final Cache<Key, List<UUID>> fieldIds = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofMinutes(5))
+            .recordStats()
+            .build();
+
+    private final Cache<Key, List<Tag>> tags = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofMinutes(5))
+            .recordStats()
+            .build();
+
+    public InUseCache(CustomFieldValueRepository cfvRepository,
+                      EntityTagRepository entityTagRepository,
+                      CacheInvalidationBus invalidationBus,
+                      MeterRegistry meterRegistry) {
+        this.cfvRepository = cfvRepository;
+        this.entityTagRepository = entityTagRepository;
+        this.invalidationBus = invalidationBus;
+        CaffeineCacheMetrics.monitor(meterRegistry, fieldIds, "customFieldsInUse");
+        CaffeineCacheMetrics.monitor(meterRegistry, tags, "tagsInUse");
+        invalidationBus.subscribe(FIELDS_TOPIC, key -> evict(fieldIds, key));
+        invalidationBus.subscribe(TAGS_TOPIC, key -> evict(tags, key));
+    }
+
+    /**
+     * Ids of the custom fields with at least one stored value; with an entity type, only fields
+     * that belong to a group of that type.
+     */
+    public List<UUID> getFieldIdsInUse(UUID orgId, String entityType) {
+        Key key = new Key(orgId, normalize(entityType));
+        // The caller's own uncommitted changes must not end up in the shared cache
+        return invalidationBus.isPending(FIELDS_TOPIC, orgId.toString())
+                ? loadFieldIds(key)
+                : fieldIds.get(key, this::loadFieldIds);
+    }
+
+    /** Tags with at least one link, by name; with an entity type, only tags linked to entities of that type. */
+    public List<Tag> getTagsInUse(UUID orgId, String entityType) {
+        Key key = new Key(orgId, normalize(entityType));
+        return invalidationBus.isPending(TAGS_TOPIC, orgId.toString())
+                ? loadTags(key)
+                : tags.get(key, this::loadTags);
+    }
+
+    public void invalidateFields(UUID orgId) {
+        invalidationBus.publish(FIELDS_TOPIC, orgId.toString());
+    }
+
+    public void invalidateTags(UUID orgId) {
+        invalidationBus.publish(TAGS_TOPIC, orgId.toString());
+    }
+
+    private List<UUID> loadFieldIds(Key key) {
+        return cfvRepository.findFieldIdsInUse(key.orgId(), key.entityType()).stream()
+                .map(UUID::fromString)
+                .toList();
+    }
+
+    private List<Tag> loadTags(Key key) {
+        List<Tag> loaded = key.entityType() != null
+                ? entityTagRepository.findDistinctTagsByEntityType(key.entityType(), key.orgId())
+                : entityTagRepository.findDistinctTagsInUse(key.orgId());
+        return loaded.stream().map(InUseCache::copy).toList();
+    }
+
+    // Copies keep the caller's managed instances out of the shared cache
+    private static Tag copy(Tag source) {
+        Tag copy = new Tag();
+        copy.setId(source.getId());
+        copy.setOrganizationId(source.getOrganizationId());
+        copy.setName(source.getName());
+        copy.setColor(source.getColor());
+        copy.setCreatedAt(source.getCreatedAt());
+        return copy;
+    }
+
+    private static <V> void evict(Cache<Key, V> cache, String key) {
+        if (CacheInvalidationBus.ALL.equals(key)) {
+            cache.invalidateAll();
+        } else {
+            UUID orgId = UUID.fromString(key);
+            cache.asMap().keySet().removeIf(k -> k.orgId().equals(orgId));
+        }
+    }
+
+    private static String normalize(String entityType) {
+        return entityType == null || entityType.isBlank() ? null : entityType;
+    }
+
+    private record Key(UUID orgId, String entityType) {}
+}
@@ -0,0 +1,96 @@
+package com.kfdlabs.asap.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kfdlabs.asap.repository.OrganizationMemberRepository;
+import com.kfdlabs.asap.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Short-lived cache of what the JWT filter resolves for every request: whether the user is still
+ * active and which role they hold in the token's organization.
+ * <p>
+ * Entries are keyed by (user, organization) and evicted for the whole user on every node through
+ * the {@link CacheInvalidationBus} when a membership or the user itself changes; the TTL bounds
+ * how long a change made outside those paths (or a lost notification) can go unnoticed.
+ */
+@Component
+public class PrincipalCache {
+
+    private static final String TOPIC = "principals";
+
+    private final UserRepository userRepository;
+    private final OrganizationMemberRepository organizationMemberRepository;
+    private final CacheInvalidationBus invalidationBus;
+
+    private final Cache<Key, List<GrantedAuthority>> authorities;
+
+    public PrincipalCache(UserRepository userRepository,
+                          OrganizationMemberRepository organizationMemberRepository,
+                          CacheInvalidationBus invalidationBus,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.security.principal-cache.max-size:50000}") long maxSize,
+                          @Value("${app.security.principal-cache.ttl:30s}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.organizationMemberRepository = organizationMemberRepository;
+        this.invalidationBus = invalidationBus;
+        this.authorities = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, authorities, "principals");
+        invalidationBus.subscribe(TOPIC, this::evict);
+    }
+
+    /**
+     * Authorities of an active user in the given organization (empty without an active membership
+     * or organization), or {@code null} if the user does not exist or is deactivated. Unknown
+     * users are not cached, so a reactivation takes effect immediately.
+     */
+    public List<GrantedAuthority> getAuthorities(UUID userId, UUID organizationId) {
+        Key key = new Key(userId, organizationId);
+        // The caller's own uncommitted changes must not end up in the shared cache
+        return invalidationBus.isPending(TOPIC, userId.toString())
+                ? load(key)
+                : authorities.get(key, this::load);
+    }
+
+    /** Drops every cached principal of the user, here now and on other nodes once the caller commits. */
+    public void invalidate(UUID userId) {
+        invalidationBus.publish(TOPIC, userId.toString());
+    }
+
+    // Reads on the caller's connection, or in short transactions of their own outside one
+    private List<GrantedAuthority> load(Key key) {
+        if (!userRepository.existsByIdAndIsActiveTrue(key.userId())) {
+            return null;
+        }
+        if (key.organizationId() == null) {
+            return List.of();
+        }
+        return organizationMemberRepository.findActiveRole(key.organizationId(), key.userId())
+                .<List<GrantedAuthority>>map(role -> List.of(new SimpleGrantedAuthority("ROLE_" + role.name())))
+                .orElse(List.of());
+    }
+
+    private void evict(String key) {
+        if (CacheInvalidationBus.ALL.equals(key)) {
+            authorities.invalidateAll();
+        } else {
+            UUID userId = UUID.fromString(key);
+            authorities.asMap().keySet().removeIf(k -> k.userId().equals(userId));
+        }
+    }
+
+    private record Key(UUID userId, UUID organizationId) {}
+}
@@ -0,0 +1,111 @@
+package com.kfdlabs.asap.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-organization change counters for the resources the frontend polls, used to answer
+ * conditional GETs without loading anything.
+ * <p>
+ * Write methods {@link #bump} the counter of every resource type they change in the writing
+ * transaction; the counters of an organization are read from {@code resource_versions} once and
+ * then served from memory until a bump on any node evicts them. An ETag is a digest of the
+ * organization, the request URL and the counters the response depends on, so it changes whenever
+ * one of those resources does. Counters are read on the caller's connection; a transaction that
+ * has bumped them reads around the cache until it completes, so uncommitted counters are never cached.
+ */
+@Component
+public class ResourceVersions {
+
+    /** Lets browsers keep versioned responses but revalidate them on every use. */
+    public static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private static final String TOPIC = "resource-versions";
+
+    public enum ResourceType {
+        /** Tags and tag groups. */
+        TAGS,
+        /** Tag assignments of any entity. */
+        TAG_LINKS,
+        /** Custom field definitions and groups. */
+        CUSTOM_FIELDS,
+        /** Custom field values and group assignments of any entity. */
+        CUSTOM_FIELD_VALUES,
+        CLIENTS
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheInvalidationBus invalidationBus;
+
+    private final Cache<UUID, Map<ResourceType, Long>> versions = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .build();
+
+    public ResourceVersions(JdbcTemplate jdbcTemplate, CacheInvalidationBus invalidationBus) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.invalidationBus = invalidationBus;
+        invalidationBus.subscribe(TOPIC, this::evict);
+    }
+
+    /** Increments the counters in the current transaction; other nodes drop theirs once it commits. */
+    public void bump(UUID orgId, ResourceType... types) {
+        for (ResourceType type : types) {
+            jdbcTemplate.update("""
+                    INSERT INTO resource_versions (organization_id, resource_type, version) VALUES (?, ?, 1)
+                    ON CONFLICT (organization_id, resource_type)
+                    DO UPDATE SET version = resource_versions.version + 1
+                    """, orgId, type.name());
+        }
+        invalidationBus.publish(TOPIC, orgId.toString());
+    }
+
+    /** Strong ETag for a response to {@code request} that depends on the given resource types. */
+    public String etag(UUID orgId, HttpServletRequest request, ResourceType... types) {
+        Map<ResourceType, Long> current = invalidationBus.isPending(TOPIC, orgId.toString())
+                ? load(orgId)
+                : versions.get(orgId, this::load);
+        StringBuilder source = new StringBuilder()
+                .append(orgId).append('|')
+                .append(request.getRequestURI()).append('?').append(request.getQueryString());
+        for (ResourceType type : types) {
+            source.append('|').append(type).append('=').append(current.getOrDefault(type, 0L));
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(source.toString().getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Map<ResourceType, Long> load(UUID orgId) {
+        Map<ResourceType, Long> loaded = new EnumMap<>(ResourceType.class);
+        jdbcTemplate.query("SELECT resource_type, version FROM resource_versions WHERE organization_id = ?",
+                rs -> {
+                    loaded.put(ResourceType.valueOf(rs.getString(1)), rs.getLong(2));
+                }, orgId);
+        return loaded;
+    }
+
+    private void evict(String key) {
+        if (CacheInvalidationBus.ALL.equals(key)) {
+            versions.invalidateAll();
+        } else {
+            versions.invalidate(UUID.fromString(key));
+        }
+    }
+}
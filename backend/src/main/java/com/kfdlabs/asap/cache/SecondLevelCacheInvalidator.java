@@ -0,0 +1,77 @@
+package com.kfdlabs.asap.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Keeps the Hibernate second-level cache of other nodes in step with this one.
+ * <p>
+ * Hibernate updates the local regions itself. For every insert, update or delete of a cached
+ * entity, this sends a NOTIFY through the {@link CacheInvalidationBus} on the writing transaction's
+ * connection, so it is delivered only on commit. The other nodes evict the entity and their query
+ * results. Bulk and native statements are not seen here; the writes to the cached entities go
+ * through the entity manager.
+ */
+@Component
+public class SecondLevelCacheInvalidator
+        implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final String TOPIC = "hibernate-l2";
+
+    private final CacheInvalidationBus invalidationBus;
+    private final Cache cache;
+
+    public SecondLevelCacheInvalidator(CacheInvalidationBus invalidationBus, EntityManagerFactory entityManagerFactory) {
+        this.invalidationBus = invalidationBus;
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.cache = sessionFactory.getCache();
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        invalidationBus.subscribe(TOPIC, this::evict);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        broadcast(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        broadcast(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        broadcast(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void broadcast(EntityPersister persister, Object id) {
+        if (persister.canWriteToCache()) {
+            invalidationBus.broadcast(TOPIC, persister.getEntityName() + "#" + id);
+        }
+    }
+
+    private void evict(String key) {
+        if (CacheInvalidationBus.ALL.equals(key)) {
+            cache.evictAllRegions();
+            return;
+        }
+        int separator = key.lastIndexOf('#');
+        cache.evictEntityData(key.substring(0, separator), UUID.fromString(key.substring(separator + 1)));
+        cache.evictQueryRegions();
+    }
+}
@@ -2,73 +2,47 @@ package com.kfdlabs.asap.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kfdlabs.asap.dto.Error;
-import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Bucket;
-import io.github.bucket4j.BucketConfiguration;
-import io.github.bucket4j.distributed.BucketProxy;
-import io.github.bucket4j.postgresql.Bucket4jPostgreSQL;
-import io.github.bucket4j.postgresql.PostgreSQLadvisoryLockBasedProxyManager;
+import com.kfdlabs.asap.cache.ApiKeyCache.ResolvedApiKey;
+import com.kfdlabs.asap.security.ApiKeyVerifier;
+import com.kfdlabs.asap.security.JwtUtil;
+import com.kfdlabs.asap.security.VerifiedToken;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.SneakyThrows;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
 import org.springframework.http.HttpStatus;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
-import javax.sql.DataSource;
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.sql.Connection;
-import java.sql.Statement;
 import java.time.LocalDateTime;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
-import static java.time.Duration.ofSeconds;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Configuration
-@Slf4j
+@EnableConfigurationProperties(RateLimitProperties.class)
 public class RateLimitConfig {
 
-    @Autowired
-    private DataSource dataSource;
-
-    // as RPS is refilled once a second, its okay to delete everything once in a while
-    @Scheduled(fixedRate = 1000 * 60 * 60)
-    public void clearBuckets() {
-        try (Connection connection = dataSource.getConnection();
-             Statement statement = connection.createStatement()) {
-            statement.executeUpdate("DELETE FROM bucket");
-        } catch (Exception e) {
-            log.error("Failed to clear buckets", e);
-        }
-    }
-
-    @Bean
-    public PostgreSQLadvisoryLockBasedProxyManager<Long> lockProxyManager() {
-        return Bucket4jPostgreSQL
-                .advisoryLockBasedBuilder(dataSource)
-                .table("bucket")
-                .build();
-    }
-
     @Bean
     @ConditionalOnProperty(value = "app.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
-    public FilterRegistrationBean<RateLimitFilter> loggingFilter(ObjectMapper objectMapper,
-                                                                 @Value("${app.rate-limit.rps}") int rps) {
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(ObjectMapper objectMapper,
+                                                                   RateLimiter rateLimiter,
+                                                                   JwtUtil jwtUtil,
+                                                                   ApiKeyVerifier apiKeyVerifier,
+                                                                   RateLimitProperties properties) {
         FilterRegistrationBean<RateLimitFilter> registrationBean = new FilterRegistrationBean<>();
 
-        registrationBean.setFilter(new RateLimitFilter(rps, objectMapper, lockProxyManager()));
+        registrationBean.setFilter(new RateLimitFilter(properties, objectMapper, rateLimiter, jwtUtil, apiKeyVerifier));
         registrationBean.addUrlPatterns("/*");
         registrationBean.setOrder(Ordered.HIGHEST_PRECEDENCE);
 
@@ -77,41 +51,37 @@ public class RateLimitConfig {
 
     public static class RateLimitFilter implements Filter {
 
-        private final Map<Long, Bucket> bucketsByIpAddress;
-        private final int rps;
         private final ObjectMapper objectMapper;
-        private final PostgreSQLadvisoryLockBasedProxyManager<Long> proxyManager;
-
-        public RateLimitFilter(int rps, ObjectMapper objectMapper, PostgreSQLadvisoryLockBasedProxyManager<Long> proxyManager) {
-            this.bucketsByIpAddress = new ConcurrentHashMap<>();
-            this.rps = rps;
+        private final RateLimiter rateLimiter;
+        private final JwtUtil jwtUtil;
+        private final ApiKeyVerifier apiKeyVerifier;
+        private final List<PathPattern> excludedPaths;
+        private final List<CompiledPolicy> policies;
+        private final List<CompiledCost> costs;
+
+        public RateLimitFilter(RateLimitProperties properties, ObjectMapper objectMapper,
+                               RateLimiter rateLimiter, JwtUtil jwtUtil, ApiKeyVerifier apiKeyVerifier) {
             this.objectMapper = objectMapper;
-            this.proxyManager = proxyManager;
-        }
-
-        private BucketProxy newBucket(Long key) {
-            return proxyManager.getProxy(key, () -> BucketConfiguration.builder()
-                    .addLimit(Bandwidth.builder().capacity(rps)
-                            .refillIntervally(rps, ofSeconds(1))
-                            .build())
-                    .build());
-        }
-
-        @SneakyThrows
-        private long ipToLong(String ipAddress) {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(ipAddress.getBytes(StandardCharsets.UTF_8));
-            ByteBuffer buffer = ByteBuffer.wrap(hash);
-            return buffer.getLong();
+            this.rateLimiter = rateLimiter;
+            this.jwtUtil = jwtUtil;
+            this.apiKeyVerifier = apiKeyVerifier;
+            this.excludedPaths = compile(properties.getExcludedPaths());
+            this.policies = properties.getPolicies().stream()
+                    .map(policy -> new CompiledPolicy(policy.getName(), policy.getDimension(),
+                            compile(policy.getPaths()), methods(policy.getMethods()),
+                            new RateLimiter.Limit(policy.getCapacity(), policy.getPeriod())))
+                    .toList();
+            this.costs = properties.getCosts().stream()
+                    .map(cost -> new CompiledCost(compile(cost.getPaths()), methods(cost.getMethods()), cost.getTokens()))
+                    .toList();
         }
 
         @Override
         public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
                 throws IOException, ServletException {
-            String ipAddress = request.getRemoteAddr();
-            boolean success = bucketsByIpAddress.computeIfAbsent(ipToLong(ipAddress), this::newBucket)
-                    .tryConsume(1);
-            if (success) {
+            HttpServletRequest httpRequest = (HttpServletRequest) request;
+            PathContainer path = PathContainer.parsePath(httpRequest.getRequestURI());
+            if (matchesAny(excludedPaths, path) || tryConsume(httpRequest, path)) {
                 chain.doFilter(request, response);
                 return;
             }
@@ -122,9 +92,106 @@ public class RateLimitConfig {
             Error error = new Error()
                     .code(HttpStatus.TOO_MANY_REQUESTS.value())
                     .message("Rate limit exceeded. Please try again later.")
-                    .path(((HttpServletRequest) request).getRequestURI())
+                    .path(httpRequest.getRequestURI())
                     .timestamp(LocalDateTime.now());
             httpResponse.getWriter().write(objectMapper.writeValueAsString(error));
         }
+
+        /** Takes the request's cost from every matching policy, or from none if one of them is exhausted. */
+        private boolean tryConsume(HttpServletRequest request, PathContainer path) {
+            String method = request.getMethod();
+            long cost = costs.stream()
+                    .filter(c -> c.matches(method, path))
+                    .findFirst()
+                    .map(CompiledCost::tokens)
+                    .orElse(1L);
+
+            List<String> consumedKeys = new ArrayList<>();
+            List<Long> consumedTokens = new ArrayList<>();
+            for (CompiledPolicy policy : policies) {
+                if (!policy.matches(method, path)) {
+                    continue;
+                }
+                String subject = subject(policy.dimension(), request);
+                if (subject == null) {
+                    continue;
+                }
+
+                String key = policy.name() + ":" + subject;
+                // A cost above the capacity could never be paid
+                long tokens = Math.min(cost, policy.limit().capacity());
+                if (!rateLimiter.tryConsume(key, policy.limit(), tokens)) {
+                    for (int i = 0; i < consumedKeys.size(); i++) {
+                        rateLimiter.refund(consumedKeys.get(i), consumedTokens.get(i));
+                    }
+                    return false;
+                }
+                consumedKeys.add(key);
+                consumedTokens.add(tokens);
+            }
+            return true;
+        }
+
+        /** Value the policy's buckets are keyed by, or {@code null} if the policy does not apply to the caller. */
+        private String subject(RateLimitProperties.Dimension dimension, HttpServletRequest request) {
+            return switch (dimension) {
+                case IP -> request.getRemoteAddr();
+                case GLOBAL -> "*";
+                // An API key has its own per-caller buckets, apart from any user's
+                case USER -> accessToken(request)
+                        .map(VerifiedToken::subject)
+                        .or(() -> apiKeyVerifier.verify(request).map(apiKey -> "api-key:" + apiKey.id()))
+                        .orElse(null);
+                // Server-to-server calls count against their key's organization like user calls do
+                case ORGANIZATION -> accessToken(request)
+                        .map(VerifiedToken::organizationId)
+                        .or(() -> apiKeyVerifier.verify(request).map(ResolvedApiKey::organizationId))
+                        .map(UUID::toString)
+                        .orElse(null);
+            };
+        }
+
+        // Verified once per request and shared with the authentication filter
+        private Optional<VerifiedToken> accessToken(HttpServletRequest request) {
+            return jwtUtil.verify(request).filter(VerifiedToken::isAccess);
+        }
+
+        private static List<PathPattern> compile(List<String> patterns) {
+            return patterns.stream()
+                    .filter(pattern -> !pattern.isBlank())
+                    .map(pattern -> PathPatternParser.defaultInstance.parse(pattern.trim()))
+                    .toList();
+        }
+
+        private static Set<String> methods(List<String> methods) {
+            return methods.stream()
+                    .filter(method -> !method.isBlank())
+                    .map(method -> method.trim().toUpperCase())
+                    .collect(Collectors.toUnmodifiableSet());
+        }
+
+        private static boolean matchesAny(List<PathPattern> patterns, PathContainer path) {
+            for (PathPattern pattern : patterns) {
+                if (pattern.matches(path)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private record CompiledPolicy(String name, RateLimitProperties.Dimension dimension, List<PathPattern> paths,
+                                      Set<String> methods, RateLimiter.Limit limit) {
+            boolean matches(String method, PathContainer path) {
+                return (methods.isEmpty() || methods.contains(method))
+                        && (paths.isEmpty() || matchesAny(paths, path));
+            }
+        }
+
+        private record CompiledCost(List<PathPattern> paths, Set<String> methods, long tokens) {
+            boolean matches(String method, PathContainer path) {
+                return (methods.isEmpty() || methods.contains(method))
+                        && (paths.isEmpty() || matchesAny(paths, path));
+            }
+        }
     }
 }
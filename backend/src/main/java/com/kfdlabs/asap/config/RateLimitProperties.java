@@ -0,0 +1,56 @@
+package com.kfdlabs.asap.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rate limit policies under {@code app.rate-limit}.
+ * <p>
+ * Every policy whose paths and methods match a request takes the request's cost from its own
+ * bucket, one bucket per value of the policy's dimension; the request is rejected if any of them
+ * runs out. The cost is that of the first matching {@link Cost} rule, or 1.
+ */
+@Data
+@ConfigurationProperties("app.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    private List<String> excludedPaths = new ArrayList<>();
+    private List<Policy> policies = new ArrayList<>();
+    private List<Cost> costs = new ArrayList<>();
+
+    public enum Dimension {
+        /** Client address. */
+        IP,
+        /** Authenticated user, or API key; requests with neither skip the policy. */
+        USER,
+        /** Organization of the access token or API key; requests with neither skip the policy. */
+        ORGANIZATION,
+        /** One bucket shared by every caller of the matching routes. */
+        GLOBAL
+    }
+
+    @Data
+    public static class Policy {
+        /** Part of the bucket key, so two policies never share buckets. */
+        private String name;
+        private Dimension dimension = Dimension.IP;
+        /** Path patterns the policy applies to; all paths when empty. */
+        private List<String> paths = new ArrayList<>();
+        /** HTTP methods the policy applies to; all methods when empty. */
+        private List<String> methods = new ArrayList<>();
+        private long capacity;
+        private Duration period = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class Cost {
+        private List<String> paths = new ArrayList<>();
+        private List<String> methods = new ArrayList<>();
+        private long tokens = 1;
+    }
+}
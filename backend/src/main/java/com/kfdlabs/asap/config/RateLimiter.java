@@ -0,0 +1,185 @@
+package com.kfdlabs.asap.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets that answer from memory and share their balance through Postgres in the background.
+ * <p>
+ * Every key gets an in-process bucket, so {@link #tryConsume} never touches the database. Every
+ * {@code app.rate-limit.sync-interval} the tokens consumed since the last sync are pushed for all
+ * active keys in a single statement against {@code rate_limit_buckets}, which refills and debits
+ * the shared bucket and returns the cluster-wide balance; local buckets holding more than that are
+ * brought down to it. Between syncs each node can spend up to a full bucket on its own, so the
+ * cluster-wide limit is approximate by at most one interval's worth of traffic per node.
+ */
+@Slf4j
+@Component
+public class RateLimiter {
+
+    // Rows are written in bucket_key order, so nodes syncing overlapping keys lock them in the same
+    // order. A row another node inserted first is refilled and debited like any existing one.
+    private static final String SYNC_SQL = """
+            INSERT INTO rate_limit_buckets AS b (bucket_key, tokens, capacity, refill_per_second, updated_at)
+            SELECT d.bucket_key, d.capacity - d.consumed, d.capacity, d.refill_per_second, now()
+            FROM unnest(?::bigint[], ?::bigint[], ?::bigint[], ?::float8[])
+                AS d(bucket_key, consumed, capacity, refill_per_second)
+            ORDER BY d.bucket_key
+            ON CONFLICT (bucket_key) DO UPDATE SET
+                tokens = LEAST(EXCLUDED.capacity,
+                               b.tokens + EXTRACT(EPOCH FROM now() - b.updated_at) * EXCLUDED.refill_per_second)
+                         - (EXCLUDED.capacity - EXCLUDED.tokens),
+                capacity = EXCLUDED.capacity,
+                refill_per_second = EXCLUDED.refill_per_second,
+                updated_at = now()
+            RETURNING bucket_key, tokens
+            """;
+
+    /** {@code capacity} tokens, refilled continuously over {@code period}. */
+    public record Limit(long capacity, Duration period) {
+        double refillPerSecond() {
+            return capacity * 1000.0 / period.toMillis();
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<String, LocalBucket> buckets;
+
+    public RateLimiter(JdbcTemplate jdbcTemplate,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.rate-limit.max-buckets:100000}") long maxBuckets,
+                       @Value("${app.rate-limit.idle-timeout:10m}") Duration idleTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(idleTimeout)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, buckets, "rateLimitBuckets");
+    }
+
+    /** Takes {@code tokens} from the bucket of {@code key} if it has them; never blocks on the database. */
+    public boolean tryConsume(String key, Limit limit, long tokens) {
+        LocalBucket local = buckets.get(key, k -> new LocalBucket(k, limit));
+        if (!local.bucket.tryConsume(tokens)) {
+            return false;
+        }
+        local.unsynced.addAndGet(tokens);
+        return true;
+    }
+
+    /** Gives back tokens taken by {@link #tryConsume} for a request that another limit rejected. */
+    public void refund(String key, long tokens) {
+        LocalBucket local = buckets.getIfPresent(key);
+        if (local != null) {
+            local.bucket.addTokens(tokens);
+            local.unsynced.addAndGet(-tokens);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.sync-interval:500}")
+    public void sync() {
+        List<LocalBucket> batch = new ArrayList<>();
+        List<Long> consumed = new ArrayList<>();
+        List<LocalBucket> active = new ArrayList<>(buckets.asMap().values());
+        active.sort(Comparator.comparingLong(local -> local.dbKey));
+        for (LocalBucket local : active) {
+            long delta = local.unsynced.getAndSet(0);
+            if (delta > 0) {
+                batch.add(local);
+                consumed.add(delta);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Map<Long, LocalBucket> byDbKey = new HashMap<>();
+        batch.forEach(local -> byDbKey.put(local.dbKey, local));
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(SYNC_SQL);
+                ps.setArray(1, connection.createArrayOf("bigint", batch.stream().map(b -> b.dbKey).toArray()));
+                ps.setArray(2, connection.createArrayOf("bigint", consumed.toArray()));
+                ps.setArray(3, connection.createArrayOf("bigint", batch.stream().map(b -> b.limit.capacity()).toArray()));
+                ps.setArray(4, connection.createArrayOf("float8", batch.stream().map(b -> b.limit.refillPerSecond()).toArray()));
+                return ps;
+            }, rs -> {
+                byDbKey.get(rs.getLong(1)).reconcile(rs.getDouble(2));
+            });
+        } catch (Exception e) {
+            // Keep the deltas for the next round; until then the local buckets keep answering
+            log.warn("Failed to sync {} rate limit buckets", batch.size(), e);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).unsynced.addAndGet(consumed.get(i));
+            }
+        }
+    }
+
+    // Shared buckets of keys no node has used for an hour are back at capacity anyway
+    @Scheduled(fixedRate = 1000 * 60 * 60)
+    public void clearIdleBuckets() {
+        try {
+            jdbcTemplate.update("DELETE FROM rate_limit_buckets WHERE updated_at < now() - INTERVAL '1 hour'");
+        } catch (Exception e) {
+            log.error("Failed to clear buckets", e);
+        }
+    }
+
+    private static long toDbKey(String key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(hash).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class LocalBucket {
+        private final long dbKey;
+        private final Limit limit;
+        private final Bucket bucket;
+        private final AtomicLong unsynced = new AtomicLong();
+
+        LocalBucket(String key, Limit limit) {
+            this.dbKey = toDbKey(key);
+            this.limit = limit;
+            this.bucket = Bucket.builder()
+                    .addLimit(Bandwidth.builder().capacity(limit.capacity())
+                            .refillGreedy(limit.capacity(), limit.period())
+                            .build())
+                    .build();
+        }
+
+        /** Brings the local balance down to the shared one, minus what was spent here since the sync started. */
+        void reconcile(double sharedTokens) {
+            long target = (long) Math.floor(sharedTokens) - unsynced.get();
+            long excess = bucket.getAvailableTokens() - target;
+            if (excess > 0) {
+                bucket.consumeIgnoringRateLimits(excess);
+            }
+        }
+    }
+}
@@ -7,7 +7,6 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
 import org.jboss.logging.MDC;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
@@ -67,23 +66,11 @@ public class RequestLoggingFilter extends OncePerRequestFilter {
 
     private Optional<UserInfo> getUserInfo(HttpServletRequest request) {
         try {
-            String authorization = request.getHeader("Authorization");
-            if (StringUtils.isBlank(authorization)) {
-                return Optional.empty();
-            }
-
-            if (authorization.startsWith("Bearer ")) {
-                authorization = authorization.substring(7);
-            }
-
-            return Optional.of(new UserInfo(
-                    jwtUtil.getOrganizationIdFromToken(authorization),
-                    jwtUtil.getUserIdFromToken(authorization),
-                    jwtUtil.getEmailFromToken(authorization)
-            ));
+            // Verified once and kept on the request for JwtAuthenticationFilter
+            return jwtUtil.verify(request)
+                    .map(token -> new UserInfo(token.organizationId(), token.userId(), token.email()));
         } catch (Exception e) {
-            log.debug("Error getting user info from request: {}, authorization header: {}",
-                    request.getRequestURI(), request.getHeader("Authorization"), e);
+            log.debug("Error getting user info from request: {}", request.getRequestURI(), e);
             return Optional.empty();
         }
     }
@@ -4,15 +4,19 @@ import com.kfdlabs.asap.security.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.client.web.OAuth2AuthorizationRequestResolver;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -20,6 +24,7 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Supplier;
 
 @Configuration
 @EnableWebSecurity
@@ -27,6 +32,15 @@ import java.util.List;
 @RequiredArgsConstructor
 public class SecurityConfig {
 
+    /** Endpoints API keys may reach; organization, member, user and API key management stay user-only. */
+    private static final String[] API_KEY_PATHS = {"/api/clients/**", "/api/tags/**", "/api/tag-groups/**",
+            "/api/custom-field-definitions/**", "/api/custom-field-groups/**"};
+
+    /** POST endpoints that only read, so read-only API keys may call them. */
+    private static final String[] READ_ONLY_POSTS = {"/api/clients/search", "/api/clients/export"};
+
+    private static final AuthenticationTrustResolver TRUST_RESOLVER = new AuthenticationTrustResolverImpl();
+
     private final ApiKeyAuthenticationFilter apiKeyAuthenticationFilter;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final CustomAuthenticationEntryPoint customAuthenticationEntryPoint;
@@ -61,8 +75,12 @@ public class SecurityConfig {
                         .requestMatchers("/api/oauth2/**").permitAll()
                         .requestMatchers("/api/login/oauth2/**").permitAll()
                         .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
-                        .requestMatchers("/actuator/**").authenticated()
-                        .anyRequest().authenticated()
+                        .requestMatchers(HttpMethod.GET, API_KEY_PATHS).authenticated()
+                        .requestMatchers(HttpMethod.HEAD, API_KEY_PATHS).authenticated()
+                        .requestMatchers(HttpMethod.OPTIONS, API_KEY_PATHS).authenticated()
+                        .requestMatchers(HttpMethod.POST, READ_ONLY_POSTS).authenticated()
+                        .requestMatchers(API_KEY_PATHS).access(SecurityConfig::writeAccess)
+                        .anyRequest().access(SecurityConfig::userAccess)
                 )
                 .oauth2Login(oauth2 -> oauth2
                         .authorizationEndpoint(endpoint -> endpoint
@@ -79,9 +97,25 @@ public class SecurityConfig {
         return http.build();
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    // Users are authorized per endpoint; API keys are refused outright
+    private static AuthorizationDecision userAccess(Supplier<Authentication> authentication,
+                                                    RequestAuthorizationContext context) {
+        Authentication current = authentication.get();
+        return new AuthorizationDecision(TRUST_RESOLVER.isAuthenticated(current)
+                && !(current.getPrincipal() instanceof AuthenticatedApiKey));
+    }
+
+    // Users are authorized per endpoint; API keys additionally need the WRITE scope to change anything
+    private static AuthorizationDecision writeAccess(Supplier<Authentication> authentication,
+                                                     RequestAuthorizationContext context) {
+        Authentication current = authentication.get();
+        if (!TRUST_RESOLVER.isAuthenticated(current)) {
+            return new AuthorizationDecision(false);
+        }
+        boolean granted = !(current.getPrincipal() instanceof AuthenticatedApiKey)
+                || current.getAuthorities().stream()
+                .anyMatch(authority -> ApiKeyAuthenticationFilter.WRITE_SCOPE.equals(authority.getAuthority()));
+        return new AuthorizationDecision(granted);
     }
 
     @Bean
@@ -0,0 +1,41 @@
+package com.kfdlabs.asap.controller;
+
+import com.kfdlabs.asap.api.ApiKeysApi;
+import com.kfdlabs.asap.dto.ApiKeyResponse;
+import com.kfdlabs.asap.dto.CreateApiKeyRequest;
+import com.kfdlabs.asap.mapper.ApiKeyMapper;
+import com.kfdlabs.asap.service.ApiKeyService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+
+import java.util.List;
+import java.util.UUID;
+
+@Controller
+@RequiredArgsConstructor
+public class ApiKeyController implements ApiKeysApi {
+
+    private final ApiKeyService apiKeyService;
+    private final ApiKeyMapper apiKeyMapper;
+
+    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN')")
+    @Override
+    public ResponseEntity<List<ApiKeyResponse>> listApiKeys() {
+        return ResponseEntity.ok(apiKeyMapper.toDTO(apiKeyService.listApiKeys()));
+    }
+
+    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN')")
+    @Override
+    public ResponseEntity<ApiKeyResponse> createApiKey(CreateApiKeyRequest request) {
+        return ResponseEntity.status(201).body(apiKeyMapper.toDTO(apiKeyService.createApiKey(request)));
+    }
+
+    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN')")
+    @Override
+    public ResponseEntity<Void> revokeApiKey(UUID id) {
+        apiKeyService.revokeApiKey(id);
+        return ResponseEntity.noContent().build();
+    }
+}
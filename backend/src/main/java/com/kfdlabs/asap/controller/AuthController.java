@@ -2,7 +2,10 @@ package com.kfdlabs.asap.controller;
 
 import com.kfdlabs.asap.api.AuthApi;
 import com.kfdlabs.asap.dto.*;
+import com.kfdlabs.asap.security.JwtUtil;
+import com.kfdlabs.asap.security.VerifiedToken;
 import com.kfdlabs.asap.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -16,12 +19,21 @@ import java.util.UUID;
 public class AuthController implements AuthApi {
 
     private final AuthService authService;
+    private final JwtUtil jwtUtil;
+    private final HttpServletRequest httpRequest;
 
     @Override
     public ResponseEntity<AuthResponse> refreshToken(RefreshTokenRequest refreshTokenRequest) {
         return ResponseEntity.ok(authService.refreshToken(refreshTokenRequest.getRefreshToken()));
     }
 
+    @Override
+    public ResponseEntity<Void> logout(LogoutRequest logoutRequest) {
+        VerifiedToken accessToken = jwtUtil.verify(httpRequest).filter(VerifiedToken::isAccess).orElse(null);
+        authService.logout(accessToken, logoutRequest != null ? logoutRequest.getRefreshToken() : null);
+        return ResponseEntity.noContent().build();
+    }
+
     @Override
     public ResponseEntity<AuthMultiResponse> exchangeLoginLink(String token, UUID organizationId, String twoFactorAuthCode) {
         return ResponseEntity.ok(authService.exchangeLoginLink(organizationId, token, twoFactorAuthCode));
@@ -1,14 +1,35 @@
 package com.kfdlabs.asap.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
 import com.kfdlabs.asap.api.ClientsApi;
+import com.kfdlabs.asap.cache.ResourceVersions;
+import com.kfdlabs.asap.cache.ResourceVersions.ResourceType;
 import com.kfdlabs.asap.dto.*;
 import com.kfdlabs.asap.mapper.ClientMapper;
+import com.kfdlabs.asap.repository.ClientRepositoryCustom.ListRow;
+import com.kfdlabs.asap.security.SecurityUtils;
+import com.kfdlabs.asap.service.ClientExportService;
+import com.kfdlabs.asap.service.ClientImportService;
 import com.kfdlabs.asap.service.ClientService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.UUID;
 
 @Controller
@@ -16,34 +37,81 @@ import java.util.UUID;
 public class ClientController implements ClientsApi {
 
     private final ClientService clientService;
+    private final ClientImportService clientImportService;
+    private final ClientExportService clientExportService;
     private final ClientMapper clientMapper;
+    private final ObjectMapper objectMapper;
+    private final ResourceVersions resourceVersions;
+    private final HttpServletRequest httpRequest;
 
     @Override
-    public ResponseEntity<PaginatedClientResponse> searchClients(SearchClientsRequest request) {
-        return ResponseEntity.ok(clientMapper.toPaginatedResponse(clientService.searchClients(request)));
+    public ResponseEntity<JsonNode> searchClients(SearchClientsRequest request) {
+        Page<ListRow> page = clientService.searchClients(request);
+        PaginatedClientResponse response = clientMapper.toPaginatedEnvelope(page);
+        if (request.getFacets() != null) {
+            response.setFacets(clientMapper.toFacetsResponse(clientService.getFacets(request)));
+        }
+        ObjectNode body = objectMapper.valueToTree(response);
+        body.putRawValue("items", new RawValue(clientMapper.toListItemsJson(page)));
+        // The items were rendered by the database and are embedded in the envelope as is
+        return ResponseEntity.ok(body);
     }
 
-    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN')")
+    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN', 'ROLE_API_KEY')")
     @Override
     public ResponseEntity<ClientResponse> createClient(CreateClientRequest request) {
         return ResponseEntity.status(201).body(clientMapper.toClientResponse(clientService.createClient(request)));
     }
 
     @Override
-    public ResponseEntity<ClientResponse> getClient(UUID id) {
-        return ResponseEntity.ok(clientMapper.toClientResponse(clientService.getClientById(id)));
+    public ResponseEntity<JsonNode> getClient(UUID id) {
+        // The response embeds tag names and field labels, so their versions are part of the ETag too
+        String etag = resourceVersions.etag(SecurityUtils.getCurrentOrganizationId(), httpRequest,
+                ResourceType.CLIENTS, ResourceType.TAGS, ResourceType.TAG_LINKS,
+                ResourceType.CUSTOM_FIELDS, ResourceType.CUSTOM_FIELD_VALUES);
+        if (new ServletWebRequest(httpRequest).checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        // The response JSON was built by the database and is sent as is
+        return ResponseEntity.ok().eTag(etag).cacheControl(ResourceVersions.REVALIDATE)
+                .body(objectMapper.getNodeFactory().rawValueNode(new RawValue(clientService.getClientJson(id))));
     }
 
-    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN')")
+    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN', 'ROLE_API_KEY')")
     @Override
     public ResponseEntity<ClientResponse> updateClient(UUID id, UpdateClientRequest request) {
         return ResponseEntity.ok(clientMapper.toClientResponse(clientService.updateClient(id, request)));
     }
 
-    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN')")
+    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN', 'ROLE_API_KEY')")
     @Override
     public ResponseEntity<Void> deleteClient(UUID id) {
         clientService.deleteClient(id);
         return ResponseEntity.noContent().build();
     }
+
+    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN', 'ROLE_API_KEY')")
+    @Override
+    public ResponseEntity<ClientImportResponse> importClients(String format) {
+        // The body is read straight from the request so large uploads are never buffered
+        try (InputStream body = httpRequest.getInputStream()) {
+            return ResponseEntity.ok(clientMapper.toImportResponse(
+                    clientImportService.importClients(body, format), httpRequest));
+        } catch (IOException e) {
+            throw new HttpClientErrorException(HttpStatus.BAD_REQUEST, "error.client.import.read.failed");
+        }
+    }
+
+    @Override
+    public ResponseEntity<StreamingResponseBody> exportClients(String format, SearchClientsRequest request) {
+        boolean ndjson = "ndjson".equals(format);
+        // Rows are written to the response as they are read, on an async request thread
+        return ResponseEntity.ok()
+                .contentType(new MediaType(ndjson ? "application" : "text", ndjson ? "x-ndjson" : "csv",
+                        StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"clients." + (ndjson ? "ndjson" : "csv") + "\"")
+                .body(out -> clientExportService.exportClients(request, format, out));
+    }
+
 }
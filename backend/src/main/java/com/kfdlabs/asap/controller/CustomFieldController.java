@@ -1,13 +1,19 @@
 package com.kfdlabs.asap.controller;
 
 import com.kfdlabs.asap.api.CustomFieldsApi;
+import com.kfdlabs.asap.cache.ResourceVersions;
+import com.kfdlabs.asap.cache.ResourceVersions.ResourceType;
 import com.kfdlabs.asap.dto.*;
 import com.kfdlabs.asap.mapper.CustomFieldMapper;
+import com.kfdlabs.asap.security.SecurityUtils;
 import com.kfdlabs.asap.service.CustomFieldService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.UUID;
 
@@ -17,21 +23,30 @@ public class CustomFieldController implements CustomFieldsApi {
 
     private final CustomFieldService customFieldService;
     private final CustomFieldMapper customFieldMapper;
+    private final ResourceVersions resourceVersions;
+    private final HttpServletRequest httpRequest;
 
     // ---- Definitions ----
 
     @Override
     public ResponseEntity<PaginatedCustomFieldDefinitionResponse> listCustomFieldDefinitions(
-            String query, String entityType, Boolean distinct, Integer page, Integer size, String sortBy, String order) {
+            String query, String entityType, Boolean distinct, Integer page, Integer size, String sortBy, String order,
+            String cursor) {
+        String etag = resourceVersions.etag(SecurityUtils.getCurrentOrganizationId(), httpRequest,
+                ResourceType.CUSTOM_FIELDS, ResourceType.CUSTOM_FIELD_VALUES);
+        if (new ServletWebRequest(httpRequest).checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok().eTag(etag).cacheControl(ResourceVersions.REVALIDATE);
         if (Boolean.TRUE.equals(distinct)) {
-            return ResponseEntity.ok(customFieldMapper.toListDefinitionDTO(
+            return ok.body(customFieldMapper.toListDefinitionDTO(
                     customFieldService.findDistinctDefinitionsInUse(entityType)));
         }
-        return ResponseEntity.ok(customFieldMapper.toPaginatedDefinitionDTO(
-                customFieldService.findAllDefinitions(query, page, size, sortBy, order)));
+        return ok.body(customFieldMapper.toPaginatedDefinitionDTO(
+                customFieldService.findAllDefinitions(query, page, size, sortBy, order, cursor)));
     }
 
-    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN')")
+    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN', 'ROLE_API_KEY')")
     @Override
     public ResponseEntity<CustomFieldDefinitionResponse> createCustomFieldDefinition(
             CreateCustomFieldDefinitionRequest request) {
@@ -44,14 +59,14 @@ public class CustomFieldController implements CustomFieldsApi {
         return ResponseEntity.ok(customFieldMapper.toDefinitionDTO(customFieldService.getDefinitionById(id)));
     }
 
-    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN')")
+    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN', 'ROLE_API_KEY')")
     @Override
     public ResponseEntity<CustomFieldDefinitionResponse> updateCustomFieldDefinition(
             UUID id, UpdateCustomFieldDefinitionRequest request) {
         return ResponseEntity.ok(customFieldMapper.toDefinitionDTO(customFieldService.updateDefinition(id, request)));
     }
 
-    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN')")
+    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN', 'ROLE_API_KEY')")
     @Override
     public ResponseEntity<Void> deleteCustomFieldDefinition(UUID id) {
         customFieldService.deleteDefinition(id);
@@ -62,12 +77,17 @@ public class CustomFieldController implements CustomFieldsApi {
 
     @Override
     public ResponseEntity<PaginatedCustomFieldGroupResponse> listCustomFieldGroups(
-            String query, String entityType, Integer page, Integer size, String sortBy, String order) {
-        return ResponseEntity.ok(customFieldMapper.toPaginatedGroupDTO(
-                customFieldService.findAllGroups(query, entityType, page, size, sortBy, order)));
+            String query, String entityType, Integer page, Integer size, String sortBy, String order, String cursor) {
+        String etag = resourceVersions.etag(SecurityUtils.getCurrentOrganizationId(), httpRequest,
+                ResourceType.CUSTOM_FIELDS, ResourceType.CUSTOM_FIELD_VALUES);
+        if (new ServletWebRequest(httpRequest).checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(ResourceVersions.REVALIDATE).body(customFieldMapper.toPaginatedGroupDTO(
+                customFieldService.findAllGroups(query, entityType, page, size, sortBy, order, cursor)));
     }
 
-    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN')")
+    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN', 'ROLE_API_KEY')")
     @Override
     public ResponseEntity<CustomFieldGroupResponse> createCustomFieldGroup(
             CreateCustomFieldGroupRequest request) {
@@ -80,14 +100,14 @@ public class CustomFieldController implements CustomFieldsApi {
         return ResponseEntity.ok(customFieldMapper.toGroupDTO(customFieldService.getGroupById(id)));
     }
 
-    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN')")
+    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN', 'ROLE_API_KEY')")
     @Override
     public ResponseEntity<CustomFieldGroupResponse> updateCustomFieldGroup(
             UUID id, UpdateCustomFieldGroupRequest request) {
         return ResponseEntity.ok(customFieldMapper.toGroupDTO(customFieldService.updateGroup(id, request)));
     }
 
-    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN')")
+    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN', 'ROLE_API_KEY')")
     @Override
     public ResponseEntity<Void> deleteCustomFieldGroup(UUID id) {
         customFieldService.deleteGroup(id);
@@ -1,14 +1,20 @@
 package com.kfdlabs.asap.controller;
 
 import com.kfdlabs.asap.api.TagsApi;
+import com.kfdlabs.asap.cache.ResourceVersions;
+import com.kfdlabs.asap.cache.ResourceVersions.ResourceType;
 import com.kfdlabs.asap.dto.*;
 import com.kfdlabs.asap.mapper.TagMapper;
+import com.kfdlabs.asap.security.SecurityUtils;
 import com.kfdlabs.asap.service.EntityTagService;
 import com.kfdlabs.asap.service.TagService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.UUID;
 
@@ -19,6 +25,8 @@ public class TagController implements TagsApi {
     private final TagService tagService;
     private final EntityTagService entityTagService;
     private final TagMapper tagMapper;
+    private final ResourceVersions resourceVersions;
+    private final HttpServletRequest httpRequest;
 
     @Override
     public ResponseEntity<PaginatedTagGroupResponse> listTagGroups(
@@ -27,7 +35,7 @@ public class TagController implements TagsApi {
                 tagService.findAllTagGroups(query, page, size, sortBy, order)));
     }
 
-    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN')")
+    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN', 'ROLE_API_KEY')")
     @Override
     public ResponseEntity<TagGroupResponse> createTagGroup(CreateTagGroupRequest request) {
         return ResponseEntity.status(201).body(tagMapper.toTagGroupDTO(tagService.createTagGroup(request)));
@@ -38,13 +46,13 @@ public class TagController implements TagsApi {
         return ResponseEntity.ok(tagMapper.toTagGroupDTO(tagService.getTagGroupById(id)));
     }
 
-    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN')")
+    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN', 'ROLE_API_KEY')")
     @Override
     public ResponseEntity<TagGroupResponse> updateTagGroup(UUID id, UpdateTagGroupRequest request) {
         return ResponseEntity.ok(tagMapper.toTagGroupDTO(tagService.updateTagGroup(id, request)));
     }
 
-    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN')")
+    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN', 'ROLE_API_KEY')")
     @Override
     public ResponseEntity<Void> deleteTagGroup(UUID id) {
         tagService.deleteTagGroup(id);
@@ -54,16 +62,22 @@ public class TagController implements TagsApi {
     @Override
     public ResponseEntity<PaginatedTagResponse> listTags(
             String query, Integer page, Integer size, String sortBy, String order,
-            String entityType, Boolean distinct) {
+            String entityType, Boolean distinct, String cursor) {
+        String etag = resourceVersions.etag(SecurityUtils.getCurrentOrganizationId(), httpRequest,
+                ResourceType.TAGS, ResourceType.TAG_LINKS);
+        if (new ServletWebRequest(httpRequest).checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok().eTag(etag).cacheControl(ResourceVersions.REVALIDATE);
         if (Boolean.TRUE.equals(distinct)) {
-            return ResponseEntity.ok(tagMapper.toListTagDTO(
+            return ok.body(tagMapper.toListTagDTO(
                     entityTagService.getDistinctTagsInUse(entityType)));
         }
-        return ResponseEntity.ok(tagMapper.toPaginatedTagDTO(
-                tagService.findAllTags(query, page, size, sortBy, order)));
+        return ok.body(tagMapper.toPaginatedTagDTO(
+                tagService.findAllTags(query, page, size, sortBy, order, cursor)));
     }
 
-    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN')")
+    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN', 'ROLE_API_KEY')")
     @Override
     public ResponseEntity<TagResponse> createTag(CreateTagRequest request) {
         return ResponseEntity.status(201).body(tagMapper.toTagDTO(tagService.createTag(request)));
@@ -74,16 +88,24 @@ public class TagController implements TagsApi {
         return ResponseEntity.ok(tagMapper.toTagDTO(tagService.getTagById(id)));
     }
 
-    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN')")
+    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN', 'ROLE_API_KEY')")
     @Override
     public ResponseEntity<TagResponse> updateTag(UUID id, UpdateTagRequest request) {
         return ResponseEntity.ok(tagMapper.toTagDTO(tagService.updateTag(id, request)));
     }
 
-    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN')")
+    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN', 'ROLE_API_KEY')")
     @Override
     public ResponseEntity<Void> deleteTag(UUID id) {
         tagService.deleteTag(id);
         return ResponseEntity.noContent().build();
     }
+
+    @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN', 'ROLE_API_KEY')")
+    @Override
+    public ResponseEntity<BulkEntityTagsResponse> bulkUpdateEntityTags(BulkEntityTagsRequest request) {
+        EntityTagService.BulkTagResult result = entityTagService.bulkUpdateTags(request.getEntityType().getValue(),
+                request.getEntityIds(), request.getAddTagIds(), request.getRemoveTagIds());
+        return ResponseEntity.ok(new BulkEntityTagsResponse().added(result.added()).removed(result.removed()));
+    }
 }
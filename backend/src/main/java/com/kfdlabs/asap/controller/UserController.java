@@ -124,9 +124,9 @@ public class UserController implements UsersApi {
     @PreAuthorize("hasAnyRole('ROLE_OWNER', 'ROLE_ADMIN', 'ROLE_PLATFORM_ADMIN')")
     @Override
     public ResponseEntity<PaginatedUserResponse> findUsers(
-            String query, Integer page, Integer size, String sortBy, String order) {
+            String query, Integer page, Integer size, String sortBy, String order, String cursor) {
         UUID orgId = getCurrentOrganizationId();
-        var users = userService.findUsersByOrganization(orgId, query, page, size, sortBy, order);
+        var users = userService.findUsersByOrganization(orgId, query, page, size, sortBy, order, cursor);
         return ResponseEntity.ok(userMapper.toPaginatedDTOWithRoles(users, orgId));
     }
 
@@ -0,0 +1,12 @@
+package com.kfdlabs.asap.entity;
+
+public enum ApiKeyScope {
+    /** Safe methods only. */
+    READ,
+    /** Everything an organization admin can do. */
+    WRITE;
+
+    public static ApiKeyScope fromString(String value) {
+        return ApiKeyScope.valueOf(value.toUpperCase());
+    }
+}
@@ -9,6 +9,8 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -37,6 +39,16 @@ public class CustomFieldValue {
     @Column(columnDefinition = "jsonb")
     private String value;
 
+    /** Typed shadows of {@link #value}, populated for NUMBER / DATE / BOOLEAN fields only. */
+    @Column(name = "value_number")
+    private BigDecimal valueNumber;
+
+    @Column(name = "value_date")
+    private LocalDate valueDate;
+
+    @Column(name = "value_boolean")
+    private Boolean valueBoolean;
+
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -0,0 +1,22 @@
+package com.kfdlabs.asap.mapper;
+
+import com.kfdlabs.asap.dto.ApiKeyResponse;
+import com.kfdlabs.asap.entity.ApiKey;
+import com.kfdlabs.asap.service.ApiKeyService;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring")
+public abstract class ApiKeyMapper {
+
+    @Mapping(target = "key", ignore = true)
+    public abstract ApiKeyResponse toDTO(ApiKey entity);
+
+    public abstract List<ApiKeyResponse> toDTO(List<ApiKey> entities);
+
+    public ApiKeyResponse toDTO(ApiKeyService.CreatedApiKey created) {
+        return toDTO(created.apiKey()).key(created.key());
+    }
+}
@@ -6,15 +6,20 @@ import com.kfdlabs.asap.dto.*;
 import com.kfdlabs.asap.entity.Client;
 import com.kfdlabs.asap.entity.CustomFieldValue;
 import com.kfdlabs.asap.entity.Tag;
-import com.kfdlabs.asap.service.EntityCustomFieldService;
-import com.kfdlabs.asap.service.EntityTagService;
+import com.kfdlabs.asap.exception.ExceptionMessageResolver;
+import com.kfdlabs.asap.repository.ClientRepositoryCustom.ListRow;
+import com.kfdlabs.asap.service.AssociationLoaders;
+import com.kfdlabs.asap.service.ClientImportService;
+import com.kfdlabs.asap.service.ClientService;
+import com.kfdlabs.asap.util.PageCursor;
+import com.kfdlabs.asap.util.PaginationUtils;
+import jakarta.servlet.http.HttpServletRequest;
 import org.mapstruct.Mapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 
 import java.util.List;
-import java.util.Map;
-import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Mapper(componentModel = "spring")
 public abstract class ClientMapper {
@@ -22,10 +27,10 @@ public abstract class ClientMapper {
     private static final ObjectMapper JSON = new ObjectMapper();
 
     @Autowired
-    protected EntityTagService entityTagService;
+    protected AssociationLoaders associationLoaders;
 
     @Autowired
-    protected EntityCustomFieldService entityCustomFieldService;
+    protected ExceptionMessageResolver exceptionMessageResolver;
 
     public ClientResponse toClientResponse(Client entity) {
         ClientResponse response = new ClientResponse();
@@ -43,45 +48,67 @@ public abstract class ClientMapper {
         response.setUpdatedAt(entity.getUpdatedAt());
 
         // Tags
-        List<Tag> tags = entityTagService.getEntityTagsBatch("CLIENT", List.of(entity.getId()))
-                .getOrDefault(entity.getId(), List.of());
+        List<Tag> tags = associationLoaders.entityTags("CLIENT").load(entity.getId());
         response.setTags(tags.stream().map(this::toTagSummary).toList());
 
         // Custom field values
-        List<CustomFieldValue> values = entityCustomFieldService.getEntityCustomFieldValues(entity.getId());
+        List<CustomFieldValue> values = associationLoaders.customFieldValues().load(entity.getId());
         response.setCustomFieldValues(values.stream().map(this::toCustomFieldValueResponse).toList());
 
         return response;
     }
 
-    public ClientListItem toClientListItem(Client entity, Map<UUID, List<Tag>> tagsByEntity) {
-        ClientListItem item = new ClientListItem();
-        item.setId(entity.getId());
-        item.setName(entity.getName());
-        item.setType(entity.getType());
-        item.setEmail(entity.getEmail());
-        item.setPhone(entity.getPhone());
-        item.setIsActive(entity.getIsActive());
-        item.setCreatedAt(entity.getCreatedAt());
-
-        List<Tag> tags = tagsByEntity.getOrDefault(entity.getId(), List.of());
-        item.setTags(tags.stream().map(this::toTagSummary).toList());
+    /**
+     * Paging metadata of a search result without the items, which are rendered as JSON by the
+     * database (see {@link #toListItemsJson}). The next cursor comes from the last row's sort key.
+     */
+    public PaginatedClientResponse toPaginatedEnvelope(Page<ListRow> page) {
+        PaginatedClientResponse response = new PaginatedClientResponse();
+        response.setPage(page.getNumber());
+        response.setSize(page.getSize());
+        Boolean totalExact = PaginationUtils.isTotalExact(page);
+        response.setTotalElements(totalExact != null ? page.getTotalElements() : null);
+        response.setTotalPages(totalExact != null ? page.getTotalPages() : null);
+        response.setTotalExact(totalExact);
+        response.setHasNext(page.hasNext());
+        if (page.hasNext() && page.hasContent()) {
+            ListRow last = page.getContent().get(page.getContent().size() - 1);
+            response.setNextCursor(page.getSort().stream().findFirst()
+                    .map(order -> PageCursor.of(last.sortKey(), last.id(), order).encode())
+                    .orElse(null));
+        }
+        return response;
+    }
 
-        return item;
+    /** The rows' {@code ClientListItem} JSON as one array, in page order. */
+    public String toListItemsJson(Page<ListRow> page) {
+        return page.getContent().stream().map(ListRow::json).collect(Collectors.joining(",", "[", "]"));
     }
 
-    public PaginatedClientResponse toPaginatedResponse(Page<Client> page) {
-        List<UUID> entityIds = page.getContent().stream().map(Client::getId).toList();
-        Map<UUID, List<Tag>> tagsByEntity = entityTagService.getEntityTagsBatch("CLIENT", entityIds);
+    public ClientSearchFacets toFacetsResponse(ClientService.ClientFacets facets) {
+        ClientSearchFacets response = new ClientSearchFacets();
+        response.setTags(facets.tagCounts().entrySet().stream()
+                .map(e -> new TagFacet().tagId(e.getKey()).count(e.getValue()))
+                .toList());
+        response.setCustomFields(facets.optionCounts().entrySet().stream()
+                .map(field -> new CustomFieldFacet()
+                        .customFieldId(field.getKey())
+                        .options(field.getValue().entrySet().stream()
+                                .map(option -> new OptionFacet().value(option.getKey()).count(option.getValue()))
+                                .toList()))
+                .toList());
+        return response;
+    }
 
-        PaginatedClientResponse response = new PaginatedClientResponse();
-        response.setItems(page.getContent().stream()
-                .map(c -> toClientListItem(c, tagsByEntity))
+    public ClientImportResponse toImportResponse(ClientImportService.ImportResult result, HttpServletRequest request) {
+        ClientImportResponse response = new ClientImportResponse();
+        response.setImported(result.getImported());
+        response.setFailed(result.getFailed());
+        response.setErrors(result.getErrors().stream()
+                .map(e -> new ClientImportError()
+                        .row(e.row())
+                        .message(exceptionMessageResolver.resolveMessage(e.message(), request)))
                 .toList());
-        response.setPage(page.getNumber());
-        response.setSize(page.getSize());
-        response.setTotalElements(page.getTotalElements());
-        response.setTotalPages(page.getTotalPages());
         return response;
     }
 
@@ -8,6 +8,7 @@ import com.kfdlabs.asap.entity.CustomFieldDefinition;
 import com.kfdlabs.asap.entity.CustomFieldGroup;
 import com.kfdlabs.asap.entity.CustomFieldGroupMember;
 import com.kfdlabs.asap.service.CustomFieldService;
+import com.kfdlabs.asap.util.PaginationUtils;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -54,8 +55,10 @@ public abstract class CustomFieldMapper {
         }).toList());
         response.setPage(page.getNumber());
         response.setSize(page.getSize());
-        response.setTotalElements(page.getTotalElements());
-        response.setTotalPages(page.getTotalPages());
+        Boolean totalExact = PaginationUtils.isTotalExact(page);
+        response.setTotalElements(totalExact != null ? page.getTotalElements() : null);
+        response.setTotalPages(totalExact != null ? page.getTotalPages() : null);
+        response.setNextCursor(PaginationUtils.getNextCursor(page));
         return response;
     }
 
@@ -92,8 +95,10 @@ public abstract class CustomFieldMapper {
                 .toList());
         response.setPage(page.getNumber());
         response.setSize(page.getSize());
-        response.setTotalElements(page.getTotalElements());
-        response.setTotalPages(page.getTotalPages());
+        Boolean totalExact = PaginationUtils.isTotalExact(page);
+        response.setTotalElements(totalExact != null ? page.getTotalElements() : null);
+        response.setTotalPages(totalExact != null ? page.getTotalPages() : null);
+        response.setNextCursor(PaginationUtils.getNextCursor(page));
         return response;
     }
 }
@@ -4,7 +4,9 @@ import com.kfdlabs.asap.dto.*;
 import com.kfdlabs.asap.entity.Tag;
 import com.kfdlabs.asap.entity.TagGroup;
 import com.kfdlabs.asap.entity.TagGroupMember;
+import com.kfdlabs.asap.service.AssociationLoaders;
 import com.kfdlabs.asap.service.TagService;
+import com.kfdlabs.asap.util.PaginationUtils;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,8 +22,11 @@ public abstract class TagMapper {
     @Autowired
     protected TagService tagService;
 
+    @Autowired
+    protected AssociationLoaders associationLoaders;
+
     public TagGroupResponse toTagGroupDTO(TagGroup entity) {
-        List<TagGroupMember> members = tagService.getTagGroupMembers(entity.getId());
+        List<TagGroupMember> members = associationLoaders.tagGroupMembers().load(entity.getId());
         Map<UUID, Long> refCounts = tagService.getTagGroupReferenceCounts(List.of(entity.getId()));
         TagGroupResponse response = new TagGroupResponse();
         response.setId(entity.getId());
@@ -48,10 +53,11 @@ public abstract class TagMapper {
     public PaginatedTagGroupResponse toPaginatedTagGroupDTO(Page<TagGroup> page) {
         List<UUID> groupIds = page.getContent().stream().map(TagGroup::getId).toList();
         Map<UUID, Long> refCounts = tagService.getTagGroupReferenceCounts(groupIds);
+        associationLoaders.tagGroupMembers().register(groupIds);
         PaginatedTagGroupResponse response = new PaginatedTagGroupResponse();
         response.setItems(page.getContent().stream()
                 .map(g -> {
-                    List<TagGroupMember> members = tagService.getTagGroupMembers(g.getId());
+                    List<TagGroupMember> members = associationLoaders.tagGroupMembers().load(g.getId());
                     TagGroupResponse dto = new TagGroupResponse();
                     dto.setId(g.getId());
                     dto.setName(g.getName());
@@ -73,8 +79,10 @@ public abstract class TagMapper {
                 .toList());
         response.setPage(page.getNumber());
         response.setSize(page.getSize());
-        response.setTotalElements(page.getTotalElements());
-        response.setTotalPages(page.getTotalPages());
+        Boolean totalExact = PaginationUtils.isTotalExact(page);
+        response.setTotalElements(totalExact != null ? page.getTotalElements() : null);
+        response.setTotalPages(totalExact != null ? page.getTotalPages() : null);
+        response.setNextCursor(PaginationUtils.getNextCursor(page));
         return response;
     }
 
@@ -105,8 +113,10 @@ public abstract class TagMapper {
         }).toList());
         response.setPage(page.getNumber());
         response.setSize(page.getSize());
-        response.setTotalElements(page.getTotalElements());
-        response.setTotalPages(page.getTotalPages());
+        Boolean totalExact = PaginationUtils.isTotalExact(page);
+        response.setTotalElements(totalExact != null ? page.getTotalElements() : null);
+        response.setTotalPages(totalExact != null ? page.getTotalPages() : null);
+        response.setNextCursor(PaginationUtils.getNextCursor(page));
         return response;
     }
 }
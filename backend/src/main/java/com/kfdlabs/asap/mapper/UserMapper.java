@@ -4,6 +4,7 @@ import com.kfdlabs.asap.dto.PaginatedUserResponse;
 import com.kfdlabs.asap.dto.UserRole;
 import com.kfdlabs.asap.entity.OrganizationMember;
 import com.kfdlabs.asap.entity.User;
+import com.kfdlabs.asap.util.PaginationUtils;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.springframework.data.domain.Page;
@@ -44,8 +45,10 @@ public abstract class UserMapper {
         response.setItems(users.getContent().stream().map(this::toDTO).toList());
         response.setPage(users.getNumber());
         response.setSize(users.getSize());
-        response.setTotalElements(users.getTotalElements());
-        response.setTotalPages(users.getTotalPages());
+        Boolean totalExact = PaginationUtils.isTotalExact(users);
+        response.setTotalElements(totalExact != null ? users.getTotalElements() : null);
+        response.setTotalPages(totalExact != null ? users.getTotalPages() : null);
+        response.setNextCursor(PaginationUtils.getNextCursor(users));
         return response;
     }
 
@@ -56,8 +59,10 @@ public abstract class UserMapper {
                 .toList());
         response.setPage(users.getNumber());
         response.setSize(users.getSize());
-        response.setTotalElements(users.getTotalElements());
-        response.setTotalPages(users.getTotalPages());
+        Boolean totalExact = PaginationUtils.isTotalExact(users);
+        response.setTotalElements(totalExact != null ? users.getTotalElements() : null);
+        response.setTotalPages(totalExact != null ? users.getTotalPages() : null);
+        response.setNextCursor(PaginationUtils.getNextCursor(users));
         return response;
     }
 
@@ -0,0 +1,19 @@
+package com.kfdlabs.asap.repository;
+
+import com.kfdlabs.asap.entity.ApiKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ApiKeyRepository extends JpaRepository<ApiKey, UUID> {
+
+    List<ApiKey> findByOrganizationIdOrderByCreatedAtDesc(UUID organizationId);
+
+    Optional<ApiKey> findByIdAndOrganizationId(UUID id, UUID organizationId);
+
+    boolean existsByPrefix(String prefix);
+}
@@ -9,7 +9,10 @@ import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface ClientRepository extends JpaRepository<Client, UUID>, JpaSpecificationExecutor<Client> {
+public interface ClientRepository extends JpaRepository<Client, UUID>, JpaSpecificationExecutor<Client>,
+        ClientRepositoryCustom {
 
     Optional<Client> findByOrganizationIdAndName(UUID orgId, String name);
+
+    long countByOrganizationId(UUID orgId);
 }
@@ -0,0 +1,66 @@
+package com.kfdlabs.asap.repository;
+
+import com.kfdlabs.asap.entity.Client;
+import com.kfdlabs.asap.util.LookaheadPage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public interface ClientRepositoryCustom {
+
+    /**
+     * Page of matching clients as {@link ListRow}s, read and rendered in one statement without
+     * loading entities and without the COUNT query: one extra row is fetched to tell whether
+     * more follow. Unsorted pages keep the order the spec sets, such as similarity relevance.
+     */
+    LookaheadPage<ListRow> findListRows(Specification<Client> spec, Pageable pageable);
+
+    /**
+     * Number of matching clients, but stops counting at {@code cap}.
+     */
+    long countAtMost(Specification<Client> spec, int cap);
+
+    /**
+     * Inserts the clients with one JDBC batch, bypassing the persistence context. Ids must be
+     * assigned by the caller; timestamps take their column defaults.
+     */
+    void insertAll(List<Client> clients);
+
+    /** Number of matching clients per tag, in one grouped query. */
+    Map<UUID, Long> countByTag(Specification<Client> spec);
+
+    /**
+     * Number of matching clients per option of each given SELECT / MULTI_SELECT field,
+     * computed for all fields at once in a single aggregate query.
+     */
+    Map<UUID, Map<String, Long>> countByOption(Specification<Client> spec, Map<UUID, List<String>> optionsByField);
+
+    /**
+     * The client's {@code ClientResponse} JSON with tags and custom field values, assembled by
+     * Postgres in one statement. Empty when the client doesn't exist or isn't visible.
+     */
+    Optional<String> findResponseJson(UUID id);
+
+    /**
+     * Streams matching clients as unmanaged rows from a forward-only cursor fetching
+     * {@code fetchSize} rows at a time. Must be consumed inside a transaction and closed.
+     */
+    Stream<ExportRow> streamExportRows(Specification<Client> spec, Sort sort, int fetchSize);
+
+    /**
+     * A client of a search page: its id and the value of the page's first sort key, which make
+     * up the next cursor, and its {@code ClientListItem} JSON (null key when the page is unsorted).
+     */
+    record ListRow(UUID id, Object sortKey, String json) {}
+
+    record ExportRow(UUID id, String name, String type, String email, String phone, String website, String notes,
+                     String externalAccountingId, String pricingTier, Boolean isActive,
+                     LocalDateTime createdAt, LocalDateTime updatedAt) {}
+}
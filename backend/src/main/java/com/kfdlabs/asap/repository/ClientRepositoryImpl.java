@@ -0,0 +1,251 @@
+package com.kfdlabs.asap.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kfdlabs.asap.entity.Client;
+import com.kfdlabs.asap.entity.CustomFieldValue;
+import com.kfdlabs.asap.entity.EntityTag;
+import com.kfdlabs.asap.util.LookaheadPage;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.hibernate.query.criteria.JpaCriteriaQuery;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class ClientRepositoryImpl implements ClientRepositoryCustom {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO clients (id, organization_id, name, type, email, phone, website, notes,
+                                 external_accounting_id, pricing_tier, is_active)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    // Timestamps are formatted like JacksonConfig writes LocalDateTime
+    private static final String TIMESTAMP_FORMAT = "'YYYY-MM-DD\"T\"HH24:MI:SS\"Z\"'";
+
+    private static final String TAGS_LATERAL = """
+            LEFT JOIN LATERAL (
+                SELECT json_agg(json_build_object('id', t.id, 'name', t.name, 'color', t.color) ORDER BY t.name) AS tags
+                FROM entity_tags et
+                JOIN tags t ON t.id = et.tag_id
+                WHERE et.entity_type = 'CLIENT' AND et.entity_id = c.id
+            ) tg ON true
+            """;
+
+    private static final String RESPONSE_JSON_SQL = """
+            SELECT json_build_object(
+                'id', c.id, 'name', c.name, 'type', c.type, 'email', c.email, 'phone', c.phone,
+                'website', c.website, 'notes', c.notes, 'externalAccountingId', c.external_accounting_id,
+                'pricingTier', c.pricing_tier, 'isActive', c.is_active,
+                'tags', COALESCE(tg.tags, '[]'::json),
+                'customFieldValues', COALESCE(cf.vals, '[]'::json),
+                'createdAt', to_char(c.created_at, %1$s),
+                'updatedAt', to_char(c.updated_at, %1$s))::text
+            FROM clients c
+            %2$s
+            LEFT JOIN LATERAL (
+                SELECT json_agg(json_build_object(
+                           'customFieldId', d.id, 'fieldKey', d.field_key, 'fieldLabel', d.field_label,
+                           'fieldType', d.field_type, 'value', cfv.value)
+                       ORDER BY d.display_order, d.field_key) AS vals
+                FROM custom_field_values cfv
+                JOIN custom_field_definitions d ON d.id = cfv.custom_field_id
+                WHERE cfv.entity_id = c.id
+            ) cf ON true
+            WHERE c.id = ?
+            """.formatted(TIMESTAMP_FORMAT, TAGS_LATERAL);
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public LookaheadPage<ListRow> findListRows(Specification<Client> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Client> root = cq.from(Client.class);
+        Predicate predicate = spec.toPredicate(root, cq, cb);
+        if (predicate != null) cq.where(predicate);
+        // Unsorted pages keep the order the spec set, such as relevance for similarity search
+        if (pageable.getSort().isSorted()) {
+            List<Order> orders = new ArrayList<>(QueryUtils.toOrders(pageable.getSort(), root, cb));
+            if (pageable.getSort().getOrderFor("id") == null) {
+                // Tiebreaker, so rows with equal sort values cannot move between pages
+                orders.add(cb.asc(root.get("id")));
+            }
+            cq.orderBy(orders);
+        }
+        // Each item is rendered by fn_client_list_item (see 015-fn-client-list-item.sql) from the row itself
+        Expression<String> json = cb.function("fn_client_list_item", String.class, root.get("id"), root.get("name"),
+                root.get("type"), root.get("email"), root.get("phone"), root.get("isActive"), root.get("createdAt"));
+        Optional<String> sortKey = pageable.getSort().stream().findFirst().map(Sort.Order::getProperty);
+        List<Selection<?>> columns = new ArrayList<>(List.of(root.get("id"), json));
+        sortKey.ifPresent(property -> columns.add(root.get(property)));
+        cq.multiselect(columns);
+
+        TypedQuery<Tuple> query = entityManager.createQuery(cq);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize() + 1);
+        }
+        List<ListRow> rows = query.getResultList().stream()
+                .map(row -> new ListRow(row.get(0, UUID.class), sortKey.isPresent() ? row.get(2) : null,
+                        row.get(1, String.class)))
+                .toList();
+        if (pageable.isUnpaged()) {
+            return new LookaheadPage<>(rows, pageable, false);
+        }
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        return new LookaheadPage<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+
+    @Override
+    public long countAtMost(Specification<Client> spec, int cap) {
+        HibernateCriteriaBuilder cb = (HibernateCriteriaBuilder) entityManager.getCriteriaBuilder();
+        JpaCriteriaQuery<UUID> cq = cb.createQuery(UUID.class);
+        Root<Client> root = cq.from(Client.class);
+        Predicate predicate = spec.toPredicate(root, cq, cb);
+        if (predicate != null) cq.where(predicate);
+        // Counting needs no order, such as the relevance order of similarity search
+        cq.orderBy(List.of());
+        cq.select(root.get("id")).fetch(cap);
+        // SELECT count(*) FROM (SELECT c.id ... LIMIT cap), so only the number leaves the database
+        return entityManager.createQuery(cq.createCountQuery()).getSingleResult();
+    }
+
+    @Override
+    public Map<UUID, Long> countByTag(Specification<Client> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Client> root = cq.from(Client.class);
+        Root<EntityTag> etRoot = cq.from(EntityTag.class);
+        Path<UUID> tagId = etRoot.get("tag").get("id");
+        List<Predicate> where = new ArrayList<>(List.of(
+                cb.equal(etRoot.get("entityType"), "CLIENT"),
+                cb.equal(etRoot.get("entityId"), root.get("id"))));
+        Predicate predicate = spec.toPredicate(root, cq, cb);
+        if (predicate != null) where.add(predicate);
+        cq.orderBy(List.of());
+        cq.multiselect(tagId, cb.count(etRoot)).where(where.toArray(Predicate[]::new)).groupBy(tagId);
+
+        Map<UUID, Long> counts = new LinkedHashMap<>();
+        for (Tuple row : entityManager.createQuery(cq).getResultList()) {
+            counts.put(row.get(0, UUID.class), row.get(1, Long.class));
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<UUID, Map<String, Long>> countByOption(Specification<Client> spec,
+                                                      Map<UUID, List<String>> optionsByField) {
+        if (optionsByField.isEmpty()) return Map.of();
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Client> root = cq.from(Client.class);
+        Root<CustomFieldValue> cfvRoot = cq.from(CustomFieldValue.class);
+        Path<UUID> fieldId = cfvRoot.get("customFieldDefinition").get("id");
+
+        // One SUM(CASE ...) column per (field, option); value @> '"option"' matches both
+        // single values and multi-select arrays
+        List<Selection<?>> columns = new ArrayList<>();
+        optionsByField.forEach((field, options) -> options.forEach(option -> columns.add(cb.sum(cb.<Long>selectCase()
+                .when(cb.and(cb.equal(fieldId, field), cb.isTrue(cb.function("fn_jsonb_contains", Boolean.class,
+                        cfvRoot.get("value"), cb.literal(toJson(option))))), 1L)
+                .otherwise(0L)))));
+        List<Predicate> where = new ArrayList<>(List.of(
+                cb.equal(cfvRoot.get("entityId"), root.get("id")),
+                fieldId.in(optionsByField.keySet())));
+        Predicate predicate = spec.toPredicate(root, cq, cb);
+        if (predicate != null) where.add(predicate);
+        cq.orderBy(List.of());
+        cq.multiselect(columns).where(where.toArray(Predicate[]::new));
+
+        Tuple row = entityManager.createQuery(cq).getSingleResult();
+        Map<UUID, Map<String, Long>> counts = new LinkedHashMap<>();
+        int column = 0;
+        for (Map.Entry<UUID, List<String>> field : optionsByField.entrySet()) {
+            Map<String, Long> optionCounts = new LinkedHashMap<>();
+            for (String option : field.getValue()) {
+                Number count = (Number) row.get(column++);
+                optionCounts.put(option, count != null ? count.longValue() : 0L);
+            }
+            counts.put(field.getKey(), optionCounts);
+        }
+        return counts;
+    }
+
+    private static String toJson(Object value) {
+        try {
+            return JSON.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    @Override
+    public Stream<ExportRow> streamExportRows(Specification<Client> spec, Sort sort, int fetchSize) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ExportRow> cq = cb.createQuery(ExportRow.class);
+        Root<Client> root = cq.from(Client.class);
+        Predicate predicate = spec.toPredicate(root, cq, cb);
+        if (predicate != null) cq.where(predicate);
+        // A constructor projection keeps rows out of the persistence context, so memory stays flat
+        cq.select(cb.construct(ExportRow.class,
+                root.get("id"), root.get("name"), root.get("type"), root.get("email"), root.get("phone"),
+                root.get("website"), root.get("notes"), root.get("externalAccountingId"), root.get("pricingTier"),
+                root.get("isActive"), root.get("createdAt"), root.get("updatedAt")));
+        cq.orderBy(QueryUtils.toOrders(sort, root, cb));
+        return entityManager.createQuery(cq)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    @Override
+    public Optional<String> findResponseJson(UUID id) {
+        return jdbcTemplate.queryForList(RESPONSE_JSON_SQL, String.class, id).stream().findFirst();
+    }
+
+    @Override
+    public void insertAll(List<Client> clients) {
+        if (clients.isEmpty()) return;
+        jdbcTemplate.batchUpdate(INSERT_SQL, clients, clients.size(), (ps, client) -> {
+            ps.setObject(1, client.getId());
+            ps.setObject(2, client.getOrganizationId());
+            ps.setString(3, client.getName());
+            ps.setString(4, client.getType());
+            ps.setString(5, client.getEmail());
+            ps.setString(6, client.getPhone());
+            ps.setString(7, client.getWebsite());
+            ps.setString(8, client.getNotes());
+            ps.setString(9, client.getExternalAccountingId());
+            ps.setString(10, client.getPricingTier());
+            ps.setBoolean(11, client.getIsActive());
+        });
+    }
+}
@@ -4,6 +4,7 @@ import com.kfdlabs.asap.entity.CustomFieldDefinition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -13,11 +14,13 @@ import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface CustomFieldDefinitionRepository extends JpaRepository<CustomFieldDefinition, UUID> {
+public interface CustomFieldDefinitionRepository extends JpaRepository<CustomFieldDefinition, UUID>, JpaSpecificationExecutor<CustomFieldDefinition> {
 
     Optional<CustomFieldDefinition> findByOrganizationIdAndFieldKey(UUID organizationId, String fieldKey);
 
-    @Query(value = "SELECT CAST(cfv.custom_field_id AS VARCHAR), COUNT(*) FROM custom_field_values cfv WHERE cfv.custom_field_id IN :fieldIds GROUP BY cfv.custom_field_id", nativeQuery = true)
+    List<CustomFieldDefinition> findByOrganizationId(UUID organizationId);
+
+    @Query(value = "SELECT CAST(uc.subject_id AS VARCHAR), uc.reference_count FROM usage_counters uc WHERE uc.subject_type = 'CUSTOM_FIELD' AND uc.subject_id IN :fieldIds", nativeQuery = true)
     List<Object[]> countValuesByFieldIds(@Param("fieldIds") List<UUID> fieldIds);
 
     @Query("""
@@ -21,6 +21,14 @@ public interface CustomFieldGroupMemberRepository extends JpaRepository<CustomFi
             """)
     List<CustomFieldGroupMember> findByCustomFieldGroupIdOrderByDisplayOrder(@Param("groupId") UUID customFieldGroupId);
 
+    @Query("""
+            SELECT m FROM CustomFieldGroupMember m
+            JOIN FETCH m.customFieldDefinition
+            WHERE m.organizationId = :orgId
+            ORDER BY m.displayOrder
+            """)
+    List<CustomFieldGroupMember> findByOrganizationIdOrderByDisplayOrder(@Param("orgId") UUID organizationId);
+
     @Modifying
     @Query("DELETE FROM CustomFieldGroupMember m WHERE m.customFieldGroup.id = :groupId")
     void deleteByCustomFieldGroupId(@Param("groupId") UUID groupId);
@@ -4,6 +4,7 @@ import com.kfdlabs.asap.entity.CustomFieldGroup;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -13,11 +14,11 @@ import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface CustomFieldGroupRepository extends JpaRepository<CustomFieldGroup, UUID> {
+public interface CustomFieldGroupRepository extends JpaRepository<CustomFieldGroup, UUID>, JpaSpecificationExecutor<CustomFieldGroup> {
 
     Optional<CustomFieldGroup> findByOrganizationIdAndName(UUID organizationId, String name);
 
-    @Query(value = "SELECT CAST(ecfg.custom_field_group_id AS VARCHAR), COUNT(*) FROM entity_custom_field_groups ecfg WHERE ecfg.custom_field_group_id IN :groupIds GROUP BY ecfg.custom_field_group_id", nativeQuery = true)
+    @Query(value = "SELECT CAST(uc.subject_id AS VARCHAR), uc.reference_count FROM usage_counters uc WHERE uc.subject_type = 'FIELD_GROUP' AND uc.subject_id IN :groupIds", nativeQuery = true)
     List<Object[]> countEntityAssignmentsByGroupIds(@Param("groupIds") List<UUID> groupIds);
 
     @Query("""
@@ -2,16 +2,18 @@ package com.kfdlabs.asap.repository;
 
 import com.kfdlabs.asap.entity.CustomFieldValue;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface CustomFieldValueRepository extends JpaRepository<CustomFieldValue, UUID> {
+public interface CustomFieldValueRepository extends JpaRepository<CustomFieldValue, UUID>, CustomFieldValueRepositoryCustom {
 
     @Query("SELECT cfv FROM CustomFieldValue cfv JOIN FETCH cfv.customFieldDefinition WHERE cfv.entityId = :entityId")
     List<CustomFieldValue> findByEntityId(@Param("entityId") UUID entityId);
@@ -21,8 +23,45 @@ public interface CustomFieldValueRepository extends JpaRepository<CustomFieldVal
 
     Optional<CustomFieldValue> findByCustomFieldDefinitionIdAndEntityId(UUID fieldId, UUID entityId);
 
-    void deleteByEntityId(UUID entityId);
+    @Modifying
+    @Query("DELETE FROM CustomFieldValue cfv WHERE cfv.entityId = :entityId")
+    int deleteByEntityId(@Param("entityId") UUID entityId);
 
-    @Query("SELECT DISTINCT cfv.customFieldDefinition.id FROM CustomFieldValue cfv WHERE cfv.organizationId = :orgId")
-    List<UUID> findDistinctFieldIdsInUse(@Param("orgId") UUID orgId);
+    @Query(value = "SELECT CAST(cfv.entity_id AS VARCHAR), CAST(cfv.custom_field_id AS VARCHAR), CAST(cfv.value AS VARCHAR) FROM custom_field_values cfv WHERE cfv.entity_id IN :entityIds", nativeQuery = true)
+    List<Object[]> findRawValuesByEntityIds(@Param("entityIds") List<UUID> entityIds);
+
+    @Modifying
+    @Query("DELETE FROM CustomFieldValue cfv WHERE cfv.entityId = :entityId AND cfv.customFieldDefinition.id IN :fieldIds")
+    int deleteByEntityIdAndFieldIds(@Param("entityId") UUID entityId, @Param("fieldIds") Collection<UUID> fieldIds);
+
+    /**
+     * Recompute the typed shadow columns of every value of a field from its JSONB value,
+     * using the field's current type (see 003-custom-field-typed-values.sql).
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE custom_field_values cfv
+            SET value_number  = CASE WHEN cfd.field_type = 'NUMBER' THEN fn_jsonb_to_numeric(cfv.value) END,
+                value_date    = CASE WHEN cfd.field_type = 'DATE' THEN fn_jsonb_to_date(cfv.value) END,
+                value_boolean = CASE WHEN cfd.field_type = 'BOOLEAN' THEN fn_jsonb_to_boolean(cfv.value) END
+            FROM custom_field_definitions cfd
+            WHERE cfd.id = cfv.custom_field_id AND cfv.custom_field_id = :fieldId
+            """, nativeQuery = true)
+    int refreshTypedValues(@Param("fieldId") UUID fieldId);
+
+    /**
+     * Ids of the organization's fields that have at least one value, restricted to fields that are
+     * members of a group of {@code entityType} unless it is {@code null}. Each check is a semi-join that
+     * stops at the first matching row.
+     */
+    @Query(value = """
+            SELECT CAST(cfd.id AS VARCHAR) FROM custom_field_definitions cfd
+            WHERE cfd.organization_id = :orgId
+              AND EXISTS (SELECT 1 FROM custom_field_values cfv WHERE cfv.custom_field_id = cfd.id)
+              AND (CAST(:entityType AS VARCHAR) IS NULL OR EXISTS (
+                    SELECT 1 FROM custom_field_group_members gm
+                    JOIN custom_field_groups g ON g.id = gm.custom_field_group_id
+                    WHERE gm.custom_field_id = cfd.id AND g.entity_type = :entityType))
+            """, nativeQuery = true)
+    List<String> findFieldIdsInUse(@Param("orgId") UUID orgId, @Param("entityType") String entityType);
 }
@@ -0,0 +1,18 @@
+package com.kfdlabs.asap.repository;
+
+import java.util.Collection;
+import java.util.UUID;
+
+public interface CustomFieldValueRepositoryCustom {
+
+    /**
+     * Inserts or replaces the given values in a single statement. Rows whose field is not a
+     * definition of {@code organizationId} are skipped; typed shadow columns are derived from
+     * the JSONB value and the field type. Each (entity, field) pair may appear only once.
+     * Returns the number of rows written.
+     */
+    int upsertValues(UUID organizationId, Collection<ValueRow> rows);
+
+    /** @param value the value serialized as JSON */
+    record ValueRow(UUID entityId, UUID customFieldId, String value) {}
+}
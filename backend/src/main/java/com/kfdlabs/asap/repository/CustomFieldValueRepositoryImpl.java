@@ -0,0 +1,52 @@
+package com.kfdlabs.asap.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class CustomFieldValueRepositoryImpl implements CustomFieldValueRepositoryCustom {
+
+    /*
+     * Rows are passed as parallel arrays so the statement text is the same for any batch size.
+     * The join on custom_field_definitions validates field ids against the organization in the
+     * same round trip; the CASE expressions mirror refreshTypedValues.
+     */
+    private static final String UPSERT_SQL = """
+            INSERT INTO custom_field_values (organization_id, custom_field_id, entity_id, value,
+                                             value_number, value_date, value_boolean)
+            SELECT cfd.organization_id, cfd.id, v.entity_id, v.value,
+                   CASE WHEN cfd.field_type = 'NUMBER' THEN fn_jsonb_to_numeric(v.value) END,
+                   CASE WHEN cfd.field_type = 'DATE' THEN fn_jsonb_to_date(v.value) END,
+                   CASE WHEN cfd.field_type = 'BOOLEAN' THEN fn_jsonb_to_boolean(v.value) END
+            FROM unnest(?::uuid[], ?::uuid[], ?::jsonb[]) AS v(entity_id, custom_field_id, value)
+            JOIN custom_field_definitions cfd ON cfd.id = v.custom_field_id AND cfd.organization_id = ?
+            ON CONFLICT (custom_field_id, entity_id) DO UPDATE
+            SET value         = EXCLUDED.value,
+                value_number  = EXCLUDED.value_number,
+                value_date    = EXCLUDED.value_date,
+                value_boolean = EXCLUDED.value_boolean,
+                updated_at    = NOW()
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int upsertValues(UUID organizationId, Collection<ValueRow> rows) {
+        if (rows.isEmpty()) return 0;
+        UUID[] entityIds = rows.stream().map(ValueRow::entityId).toArray(UUID[]::new);
+        UUID[] fieldIds = rows.stream().map(ValueRow::customFieldId).toArray(UUID[]::new);
+        String[] values = rows.stream().map(ValueRow::value).toArray(String[]::new);
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(UPSERT_SQL);
+            ps.setArray(1, connection.createArrayOf("uuid", entityIds));
+            ps.setArray(2, connection.createArrayOf("uuid", fieldIds));
+            ps.setArray(3, connection.createArrayOf("text", values));
+            ps.setObject(4, organizationId);
+            return ps;
+        });
+    }
+}
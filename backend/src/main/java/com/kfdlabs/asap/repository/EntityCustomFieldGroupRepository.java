@@ -2,6 +2,9 @@ package com.kfdlabs.asap.repository;
 
 import com.kfdlabs.asap.entity.EntityCustomFieldGroup;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,5 +17,7 @@ public interface EntityCustomFieldGroupRepository extends JpaRepository<EntityCu
 
     List<EntityCustomFieldGroup> findByEntityTypeAndEntityIdIn(String entityType, List<UUID> entityIds);
 
-    void deleteByEntityTypeAndEntityId(String entityType, UUID entityId);
+    @Modifying
+    @Query("DELETE FROM EntityCustomFieldGroup ecfg WHERE ecfg.entityType = :entityType AND ecfg.entityId = :entityId")
+    int deleteByEntityTypeAndEntityId(@Param("entityType") String entityType, @Param("entityId") UUID entityId);
 }
@@ -3,6 +3,7 @@ package com.kfdlabs.asap.repository;
 import com.kfdlabs.asap.entity.EntityTag;
 import com.kfdlabs.asap.entity.Tag;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -11,7 +12,7 @@ import java.util.List;
 import java.util.UUID;
 
 @Repository
-public interface EntityTagRepository extends JpaRepository<EntityTag, UUID> {
+public interface EntityTagRepository extends JpaRepository<EntityTag, UUID>, EntityTagRepositoryCustom {
 
     @Query("SELECT et FROM EntityTag et JOIN FETCH et.tag WHERE et.entityType = :entityType AND et.entityId = :entityId")
     List<EntityTag> findByEntityTypeAndEntityId(@Param("entityType") String entityType, @Param("entityId") UUID entityId);
@@ -19,20 +20,27 @@ public interface EntityTagRepository extends JpaRepository<EntityTag, UUID> {
     @Query("SELECT et FROM EntityTag et JOIN FETCH et.tag WHERE et.organizationId = :organizationId AND et.entityType = :entityType AND et.entityId = :entityId")
     List<EntityTag> findByOrganizationIdAndEntityTypeAndEntityId(@Param("organizationId") UUID organizationId, @Param("entityType") String entityType, @Param("entityId") UUID entityId);
 
-    @Query(value = "SELECT CAST(et.tag_id AS VARCHAR), COUNT(*) FROM entity_tags et WHERE et.tag_id IN :tagIds GROUP BY et.tag_id", nativeQuery = true)
+    /** Reads the counters kept in {@code usage_counters} (see 007-usage-counters.sql); tags without links have no row. */
+    @Query(value = "SELECT CAST(uc.subject_id AS VARCHAR), uc.reference_count FROM usage_counters uc WHERE uc.subject_type = 'TAG' AND uc.subject_id IN :tagIds", nativeQuery = true)
     List<Object[]> countByTagIds(@Param("tagIds") List<UUID> tagIds);
 
-    @Query(value = "SELECT CAST(tgm.tag_group_id AS VARCHAR), COUNT(et.id) FROM tag_group_members tgm LEFT JOIN entity_tags et ON et.tag_id = tgm.tag_id WHERE tgm.tag_group_id IN :groupIds GROUP BY tgm.tag_group_id", nativeQuery = true)
+    /** Sums the member tags' counters, so the cost depends on group sizes rather than on the number of links. */
+    @Query(value = "SELECT CAST(tgm.tag_group_id AS VARCHAR), COALESCE(SUM(uc.reference_count), 0) FROM tag_group_members tgm LEFT JOIN usage_counters uc ON uc.subject_type = 'TAG' AND uc.subject_id = tgm.tag_id WHERE tgm.tag_group_id IN :groupIds GROUP BY tgm.tag_group_id", nativeQuery = true)
     List<Object[]> countByTagGroupIds(@Param("groupIds") List<UUID> groupIds);
 
     @Query("SELECT et FROM EntityTag et JOIN FETCH et.tag WHERE et.entityType = :entityType AND et.entityId IN :entityIds")
     List<EntityTag> findByEntityTypeAndEntityIdIn(@Param("entityType") String entityType, @Param("entityIds") List<UUID> entityIds);
 
-    void deleteByEntityTypeAndEntityId(String entityType, UUID entityId);
+    @Modifying
+    @Query("DELETE FROM EntityTag et WHERE et.entityType = :entityType AND et.entityId = :entityId")
+    int deleteByEntityTypeAndEntityId(@Param("entityType") String entityType, @Param("entityId") UUID entityId);
 
-    @Query("SELECT DISTINCT t FROM EntityTag et JOIN et.tag t WHERE et.entityType = :entityType AND et.organizationId = :organizationId ORDER BY t.name")
+    @Query(value = "SELECT CAST(et.entity_id AS VARCHAR), t.name FROM entity_tags et JOIN tags t ON t.id = et.tag_id WHERE et.entity_type = :entityType AND et.entity_id IN :entityIds ORDER BY t.name", nativeQuery = true)
+    List<Object[]> findTagNamesByEntityIds(@Param("entityType") String entityType, @Param("entityIds") List<UUID> entityIds);
+
+    @Query("SELECT t FROM Tag t WHERE t.organizationId = :organizationId AND EXISTS (SELECT 1 FROM EntityTag et WHERE et.tag = t AND et.entityType = :entityType) ORDER BY t.name")
     List<Tag> findDistinctTagsByEntityType(@Param("entityType") String entityType, @Param("organizationId") UUID organizationId);
 
-    @Query("SELECT DISTINCT t FROM EntityTag et JOIN et.tag t WHERE et.organizationId = :organizationId ORDER BY t.name")
+    @Query("SELECT t FROM Tag t WHERE t.organizationId = :organizationId AND EXISTS (SELECT 1 FROM EntityTag et WHERE et.tag = t) ORDER BY t.name")
     List<Tag> findDistinctTagsInUse(@Param("organizationId") UUID organizationId);
 }
@@ -0,0 +1,30 @@
+package com.kfdlabs.asap.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+public interface EntityTagRepositoryCustom {
+
+    /**
+     * Assigns every tag of {@code tagIds} that belongs to {@code organizationId} to every entity,
+     * skipping assignments that already exist. Returns the number of rows inserted.
+     */
+    int addTags(UUID organizationId, String entityType, Collection<UUID> entityIds, Collection<UUID> tagIds);
+
+    /**
+     * Inserts one assignment per ({@code entityIds[i]}, {@code tagIds[i]}) pair, skipping existing ones.
+     * Tag ids are expected to be validated by the caller. Returns the number of rows inserted.
+     */
+    int addTagAssignments(UUID organizationId, String entityType, List<UUID> entityIds, List<UUID> tagIds);
+
+    /** Removes the given tags from every entity of the organization. Returns the number of rows deleted. */
+    int removeTags(UUID organizationId, String entityType, Collection<UUID> entityIds, Collection<UUID> tagIds);
+
+    /** Removes every tag of the entity that is not in {@code keepTagIds}. Returns the number of rows deleted. */
+    int removeTagsExcept(UUID organizationId, String entityType, UUID entityId, Collection<UUID> keepTagIds);
+
+    /** The ids among {@code entityIds} of existing entities of the type that belong to the organization. */
+    Set<UUID> findOwnedEntityIds(UUID organizationId, String entityType, Collection<UUID> entityIds);
+}
@@ -0,0 +1,127 @@
+package com.kfdlabs.asap.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class EntityTagRepositoryImpl implements EntityTagRepositoryCustom {
+
+    // Joining tags restricts the insert to the organization's own tags in the same round trip
+    private static final String ADD_SQL = """
+            INSERT INTO entity_tags (organization_id, tag_id, entity_type, entity_id)
+            SELECT t.organization_id, t.id, ?, e.id
+            FROM tags t
+            CROSS JOIN unnest(?::uuid[]) AS e(id)
+            WHERE t.id = ANY(?::uuid[]) AND t.organization_id = ?
+            ON CONFLICT (tag_id, entity_type, entity_id) DO NOTHING
+            """;
+
+    private static final String ADD_PAIRS_SQL = """
+            INSERT INTO entity_tags (organization_id, tag_id, entity_type, entity_id)
+            SELECT ?, v.tag_id, ?, v.entity_id
+            FROM unnest(?::uuid[], ?::uuid[]) AS v(entity_id, tag_id)
+            ON CONFLICT (tag_id, entity_type, entity_id) DO NOTHING
+            """;
+
+    private static final String REMOVE_SQL = """
+            DELETE FROM entity_tags
+            WHERE organization_id = ? AND entity_type = ? AND entity_id = ANY(?::uuid[]) AND tag_id = ANY(?::uuid[])
+            """;
+
+    private static final String REMOVE_EXCEPT_SQL = """
+            DELETE FROM entity_tags
+            WHERE organization_id = ? AND entity_type = ? AND entity_id = ? AND tag_id <> ALL(?::uuid[])
+            """;
+
+    // Table holding each taggable entity type, as allowed by the entity_tags.entity_type check
+    private static final Map<String, String> ENTITY_TABLES = Map.of(
+            "CLIENT", "clients",
+            "VENDOR", "vendors",
+            "PRODUCT", "products",
+            "RESOURCE", "people",
+            "PROJECT", "projects",
+            "QUOTE", "quotes",
+            "INVOICE", "invoices",
+            "CONTRACT", "contracts");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int addTags(UUID organizationId, String entityType, Collection<UUID> entityIds, Collection<UUID> tagIds) {
+        if (entityIds.isEmpty() || tagIds.isEmpty()) return 0;
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(ADD_SQL);
+            ps.setString(1, entityType);
+            ps.setArray(2, connection.createArrayOf("uuid", entityIds.toArray()));
+            ps.setArray(3, connection.createArrayOf("uuid", tagIds.toArray()));
+            ps.setObject(4, organizationId);
+            return ps;
+        });
+    }
+
+    @Override
+    public int addTagAssignments(UUID organizationId, String entityType, List<UUID> entityIds, List<UUID> tagIds) {
+        if (entityIds.isEmpty()) return 0;
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(ADD_PAIRS_SQL);
+            ps.setObject(1, organizationId);
+            ps.setString(2, entityType);
+            ps.setArray(3, connection.createArrayOf("uuid", entityIds.toArray()));
+            ps.setArray(4, connection.createArrayOf("uuid", tagIds.toArray()));
+            return ps;
+        });
+    }
+
+    @Override
+    public int removeTags(UUID organizationId, String entityType, Collection<UUID> entityIds, Collection<UUID> tagIds) {
+        if (entityIds.isEmpty() || tagIds.isEmpty()) return 0;
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(REMOVE_SQL);
+            ps.setObject(1, organizationId);
+            ps.setString(2, entityType);
+            ps.setArray(3, connection.createArrayOf("uuid", entityIds.toArray()));
+            ps.setArray(4, connection.createArrayOf("uuid", tagIds.toArray()));
+            return ps;
+        });
+    }
+
+    @Override
+    public int removeTagsExcept(UUID organizationId, String entityType, UUID entityId, Collection<UUID> keepTagIds) {
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(REMOVE_EXCEPT_SQL);
+            ps.setObject(1, organizationId);
+            ps.setString(2, entityType);
+            ps.setObject(3, entityId);
+            ps.setArray(4, connection.createArrayOf("uuid", keepTagIds.toArray()));
+            return ps;
+        });
+    }
+
+    @Override
+    public Set<UUID> findOwnedEntityIds(UUID organizationId, String entityType, Collection<UUID> entityIds) {
+        String table = ENTITY_TABLES.get(entityType);
+        if (table == null) {
+            throw new IllegalArgumentException("Unknown entity type: " + entityType);
+        }
+        if (entityIds.isEmpty()) return Set.of();
+        Set<UUID> owned = new HashSet<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "SELECT id FROM " + table + " WHERE organization_id = ? AND id = ANY(?::uuid[])");
+            ps.setObject(1, organizationId);
+            ps.setArray(2, connection.createArrayOf("uuid", entityIds.toArray()));
+            return ps;
+        }, rs -> {
+            owned.add(rs.getObject(1, UUID.class));
+        });
+        return owned;
+    }
+}
@@ -1,9 +1,12 @@
 package com.kfdlabs.asap.repository;
 
 import com.kfdlabs.asap.entity.OrganizationMember;
+import com.kfdlabs.asap.entity.OrganizationRole;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -21,6 +24,12 @@ public interface OrganizationMemberRepository extends JpaRepository<Organization
 
     Optional<OrganizationMember> findByOrganizationIdAndUserIdAndIsActiveTrue(UUID organizationId, UUID userId);
 
+    @Query("""
+            SELECT m.role FROM OrganizationMember m
+            WHERE m.organization.id = :organizationId AND m.user.id = :userId AND m.isActive = true
+            """)
+    Optional<OrganizationRole> findActiveRole(@Param("organizationId") UUID organizationId, @Param("userId") UUID userId);
+
     List<OrganizationMember> findByUserId(UUID userId);
 
     List<OrganizationMember> findByUserIdAndIsActiveTrue(UUID userId);
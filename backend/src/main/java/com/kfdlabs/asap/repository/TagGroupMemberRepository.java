@@ -21,6 +21,14 @@ public interface TagGroupMemberRepository extends JpaRepository<TagGroupMember,
             """)
     List<TagGroupMember> findByTagGroupIdOrderByDisplayOrder(@Param("groupId") UUID tagGroupId);
 
+    @Query("""
+            SELECT m FROM TagGroupMember m
+            JOIN FETCH m.tag
+            WHERE m.tagGroup.id IN :groupIds
+            ORDER BY m.displayOrder
+            """)
+    List<TagGroupMember> findByTagGroupIdInOrderByDisplayOrder(@Param("groupIds") List<UUID> tagGroupIds);
+
     @Modifying
     @Query("DELETE FROM TagGroupMember m WHERE m.tagGroup.id = :groupId")
     void deleteByTagGroupId(@Param("groupId") UUID groupId);
@@ -4,15 +4,18 @@ import com.kfdlabs.asap.entity.Tag;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface TagRepository extends JpaRepository<Tag, UUID> {
+public interface TagRepository extends JpaRepository<Tag, UUID>, JpaSpecificationExecutor<Tag> {
 
     @Query(value = """
             SELECT t FROM Tag t
@@ -29,4 +32,6 @@ public interface TagRepository extends JpaRepository<Tag, UUID> {
                       Pageable pageable);
 
     Optional<Tag> findByOrganizationIdAndName(UUID organizationId, String name);
+
+    List<Tag> findByOrganizationIdAndNameIn(UUID organizationId, Collection<String> names);
 }
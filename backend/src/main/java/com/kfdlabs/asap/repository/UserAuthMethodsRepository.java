@@ -1,8 +1,11 @@
 package com.kfdlabs.asap.repository;
 
 import com.kfdlabs.asap.entity.UserAuthMethods;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
@@ -10,6 +13,7 @@ import java.util.UUID;
 
 public interface UserAuthMethodsRepository extends JpaRepository<UserAuthMethods, UUID> {
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT uam FROM UserAuthMethods uam WHERE LOWER(uam.email) = lower(:email)")
     Optional<UserAuthMethods> findByEmail(@Param("email") String email);
 }
@@ -4,6 +4,7 @@ import com.kfdlabs.asap.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -12,12 +13,14 @@ import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, UUID> {
+public interface UserRepository extends JpaRepository<User, UUID>, JpaSpecificationExecutor<User> {
 
     Optional<User> findByEmailIgnoreCase(String email);
 
     Optional<User> findByIdAndIsActiveTrue(UUID id);
 
+    boolean existsByIdAndIsActiveTrue(UUID id);
+
     boolean existsByEmailIgnoreCase(String email);
 
     @Query("SELECT u FROM User u WHERE LOWER(u.email) = LOWER(:email) AND u.twoFactorAuthEnabled = true")
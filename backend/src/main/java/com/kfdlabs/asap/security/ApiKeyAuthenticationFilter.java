@@ -1,29 +1,74 @@
 package com.kfdlabs.asap.security;
 
+import com.kfdlabs.asap.cache.ApiKeyCache.ResolvedApiKey;
+import com.kfdlabs.asap.entity.ApiKeyScope;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 
 /**
- * API key authentication filter - placeholder for future API key support.
- * Currently disabled; no API key validation is performed.
+ * Authenticates server-to-server calls carrying an organization API key in {@code X-API-Key}.
+ * <p>
+ * Keys are resolved through {@link ApiKeyVerifier}, without any user or membership lookup. The
+ * organization of the key drives RLS.
+ * Keys hold {@link #ROLE} and one {@code SCOPE_} authority per scope, never an organization role, so
+ * they reach only the data endpoints that grant {@link #ROLE}. {@code SecurityConfig} keeps them off
+ * every other route and requires {@link #WRITE_SCOPE} on data routes that are not read-only.
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class ApiKeyAuthenticationFilter extends OncePerRequestFilter {
 
+    public static final String ROLE = "ROLE_API_KEY";
+    public static final String WRITE_SCOPE = "SCOPE_" + ApiKeyScope.WRITE.name();
+
+    private final ApiKeyVerifier apiKeyVerifier;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
-        // API key auth disabled in Phase 1 - pass through
+        if (!StringUtils.hasText(request.getHeader(ApiKeyVerifier.HEADER))
+                || SecurityContextHolder.getContext().getAuthentication() != null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Optional<ResolvedApiKey> apiKey = apiKeyVerifier.verify(request);
+        if (apiKey.isEmpty()) {
+            // Left unauthenticated; protected endpoints answer 401
+            log.debug("Rejected API key for {}", request.getRequestURI());
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        ResolvedApiKey resolved = apiKey.get();
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        authorities.add(new SimpleGrantedAuthority(ROLE));
+        resolved.scopes().forEach(scope -> authorities.add(new SimpleGrantedAuthority("SCOPE_" + scope.name())));
+
+        AuthenticatedApiKey principal = new AuthenticatedApiKey(resolved.organizationId(), resolved.id());
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(principal, null, authorities);
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
         filterChain.doFilter(request, response);
     }
 }
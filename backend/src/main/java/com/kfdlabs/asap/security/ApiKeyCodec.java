@@ -0,0 +1,69 @@
+package com.kfdlabs.asap.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Format and hashing of API keys: {@code asap_<prefix>_<secret>}, where the prefix identifies the
+ * key and only an HMAC of the whole key (peppered with {@code api-key.secret}) is stored.
+ */
+@Component
+public class ApiKeyCodec {
+
+    private static final Pattern FORMAT = Pattern.compile("^asap_([0-9a-f]{12})_[A-Za-z0-9_-]{43}$");
+    private static final String HMAC = "HmacSHA256";
+
+    private final SecureRandom random = new SecureRandom();
+    private final SecretKeySpec pepper;
+
+    public ApiKeyCodec(@Value("${api-key.secret}") String secret) {
+        this.pepper = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC);
+    }
+
+    public record GeneratedKey(String prefix, String key) {}
+
+    public GeneratedKey generate() {
+        byte[] prefix = new byte[6];
+        byte[] secret = new byte[32];
+        random.nextBytes(prefix);
+        random.nextBytes(secret);
+        String prefixHex = HexFormat.of().formatHex(prefix);
+        return new GeneratedKey(prefixHex,
+                "asap_" + prefixHex + "_" + Base64.getUrlEncoder().withoutPadding().encodeToString(secret));
+    }
+
+    /** Prefix of a well-formed key; anything else is rejected without a lookup. */
+    public Optional<String> prefixOf(String key) {
+        Matcher matcher = FORMAT.matcher(key);
+        return matcher.matches() ? Optional.of(matcher.group(1)) : Optional.empty();
+    }
+
+    public String hash(String key) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(pepper);
+            return HexFormat.of().formatHex(mac.doFinal(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Compares a presented key with a stored hash in constant time. */
+    public boolean matches(String key, String storedHash) {
+        return MessageDigest.isEqual(
+                hash(key).getBytes(StandardCharsets.US_ASCII),
+                storedHash.getBytes(StandardCharsets.US_ASCII));
+    }
+}
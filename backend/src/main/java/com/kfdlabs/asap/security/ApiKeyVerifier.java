@@ -0,0 +1,47 @@
+package com.kfdlabs.asap.security;
+
+import com.kfdlabs.asap.cache.ApiKeyCache;
+import com.kfdlabs.asap.cache.ApiKeyCache.ResolvedApiKey;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Resolves the {@code X-API-Key} of a request: looked up by prefix in {@link ApiKeyCache} and
+ * checked against the stored HMAC in constant time. Shared by the rate limiter and the
+ * authentication filter, so each request checks its key once.
+ */
+@Component
+@RequiredArgsConstructor
+public class ApiKeyVerifier {
+
+    public static final String HEADER = "X-API-Key";
+
+    /** Request attribute memoizing {@link #verify(HttpServletRequest)}. */
+    private static final String VERIFIED_KEY_ATTRIBUTE = ApiKeyVerifier.class.getName();
+
+    private final ApiKeyCodec apiKeyCodec;
+    private final ApiKeyCache apiKeyCache;
+
+    /** The request's API key, if it carries one that is known, matches and is usable. */
+    @SuppressWarnings("unchecked")
+    public Optional<ResolvedApiKey> verify(HttpServletRequest request) {
+        Object memo = request.getAttribute(VERIFIED_KEY_ATTRIBUTE);
+        if (memo != null) {
+            return (Optional<ResolvedApiKey>) memo;
+        }
+        String key = request.getHeader(HEADER);
+        Optional<ResolvedApiKey> verified = StringUtils.hasText(key)
+                ? apiKeyCodec.prefixOf(key)
+                        .flatMap(apiKeyCache::get)
+                        .filter(resolved -> apiKeyCodec.matches(key, resolved.keyHash()))
+                        .filter(resolved -> resolved.isUsable(LocalDateTime.now()))
+                : Optional.empty();
+        request.setAttribute(VERIFIED_KEY_ATTRIBUTE, verified);
+        return verified;
+    }
+}
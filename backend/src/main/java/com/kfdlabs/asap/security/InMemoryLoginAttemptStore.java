@@ -0,0 +1,72 @@
+package com.kfdlabs.asap.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * {@link LoginAttemptStore} on this node only. Entries are bounded in number and dropped once
+ * both their window and their lockout are over, so sprayed addresses do not accumulate.
+ */
+@Component
+@ConditionalOnProperty(value = "app.security.login-attempts.store", havingValue = "memory")
+public class InMemoryLoginAttemptStore implements LoginAttemptStore {
+
+    protected final int maxAttempts;
+    protected final Duration window;
+    protected final Duration lockout;
+
+    private final Cache<String, Attempts> attempts;
+
+    public InMemoryLoginAttemptStore(@Value("${app.security.max-login-attempts:5}") int maxAttempts,
+                                     @Value("${app.security.lockout-duration-minutes:15}") int lockoutMinutes,
+                                     @Value("${app.security.login-attempts.window:15m}") Duration window,
+                                     @Value("${app.security.login-attempts.max-entries:100000}") long maxEntries) {
+        this.maxAttempts = maxAttempts;
+        this.window = window;
+        this.lockout = Duration.ofMinutes(lockoutMinutes);
+        this.attempts = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(window.plus(lockout))
+                .build();
+    }
+
+    @Override
+    public boolean isLocked(String key) {
+        Attempts current = attempts.getIfPresent(key);
+        return current != null && current.isLocked(Instant.now());
+    }
+
+    @Override
+    public boolean recordFailure(String key) {
+        Instant now = Instant.now();
+        return attempts.asMap().compute(key, (k, current) -> {
+            if (current == null || current.windowStart().plus(window).isBefore(now)) {
+                current = new Attempts(0, now, current != null ? current.lockedUntil() : null);
+            }
+            int failures = current.failures() + 1;
+            Instant lockedUntil = failures >= maxAttempts ? now.plus(lockout) : current.lockedUntil();
+            return new Attempts(failures, current.windowStart(), lockedUntil);
+        }).isLocked(now);
+    }
+
+    @Override
+    public void reset(String key) {
+        attempts.invalidate(key);
+    }
+
+    protected void resetAll() {
+        attempts.invalidateAll();
+    }
+
+    private record Attempts(int failures, Instant windowStart, Instant lockedUntil) {
+        boolean isLocked(Instant now) {
+            return lockedUntil != null && lockedUntil.isAfter(now);
+        }
+    }
+}
@@ -1,29 +1,52 @@
 package com.kfdlabs.asap.security;
 
-import io.jsonwebtoken.Claims;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Optional;
 import java.util.UUID;
 
 @Component
 public class JwtUtil {
 
+    /** Request attribute memoizing {@link #verify(HttpServletRequest)}, so each request parses its token once. */
+    private static final String VERIFIED_TOKEN_ATTRIBUTE = VerifiedToken.class.getName();
+
     private final SecretKey secretKey;
     private final long accessTokenValidityInMilliseconds;
     private final long refreshTokenValidityInMilliseconds;
+    private final JwtParser parser;
+    // Recently verified tokens by SHA-256 digest, so repeat calls skip the HMAC check and JSON parse
+    private final Cache<String, VerifiedToken> verifiedTokens;
+    private final TokenRevocationList revocationList;
 
-    public JwtUtil(@Value("${jwt.secret:mySecretKey}") String secret,
+    public JwtUtil(TokenRevocationList revocationList,
+                   @Value("${jwt.secret:mySecretKey}") String secret,
                    @Value("${jwt.access-token-validity:3600000}") long accessTokenValidityInMilliseconds,
-                   @Value("${jwt.refresh-token-validity:86400000}") long refreshTokenValidityInMilliseconds) {
+                   @Value("${jwt.refresh-token-validity:86400000}") long refreshTokenValidityInMilliseconds,
+                   @Value("${jwt.verified-cache-size:10000}") long verifiedCacheSize) {
+        this.revocationList = revocationList;
         this.secretKey = Keys.hmacShaKeyFor(secret.getBytes());
         this.accessTokenValidityInMilliseconds = accessTokenValidityInMilliseconds;
         this.refreshTokenValidityInMilliseconds = refreshTokenValidityInMilliseconds;
+        this.parser = Jwts.parser().verifyWith(secretKey).build();
+        this.verifiedTokens = verifiedCacheSize > 0
+                ? Caffeine.newBuilder().maximumSize(verifiedCacheSize).build()
+                : null;
     }
 
     public String generateAccessToken(UUID organizationId, UUID userId, String email) {
@@ -31,6 +54,7 @@ public class JwtUtil {
         Date validity = new Date(now.getTime() + accessTokenValidityInMilliseconds);
 
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(userId.toString())
                 .claim("email", email)
                 .claim("organizationId", organizationId != null ? organizationId.toString() : null)
@@ -46,6 +70,7 @@ public class JwtUtil {
         Date validity = new Date(now.getTime() + refreshTokenValidityInMilliseconds);
 
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(userId.toString())
                 .claim("type", "refresh")
                 .claim("email", email)
@@ -56,41 +81,54 @@ public class JwtUtil {
                 .compact();
     }
 
-    public boolean validateToken(String token) {
-        try {
-            Jwts.parser().verifyWith(secretKey).build().parseSignedClaims(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
+    /** Claims of the request's bearer token, if it has a valid one; parsed once per request. */
+    @SuppressWarnings("unchecked")
+    public Optional<VerifiedToken> verify(HttpServletRequest request) {
+        Object memo = request.getAttribute(VERIFIED_TOKEN_ATTRIBUTE);
+        if (memo != null) {
+            return (Optional<VerifiedToken>) memo;
         }
+        String header = request.getHeader("Authorization");
+        Optional<VerifiedToken> verified = StringUtils.hasText(header) && header.startsWith("Bearer ")
+                ? verify(header.substring(7))
+                : Optional.empty();
+        request.setAttribute(VERIFIED_TOKEN_ATTRIBUTE, verified);
+        return verified;
     }
 
-    public String getEmailFromToken(String token) {
-        Claims claims = getClaims(token);
-        return claims.get("email", String.class);
-    }
-
-    public UUID getOrganizationIdFromToken(String token) {
-        Claims claims = getClaims(token);
-        String orgId = claims.get("organizationId", String.class);
-        return orgId != null ? UUID.fromString(orgId) : null;
+    /** Claims of the token if it is valid and has not been revoked. */
+    public Optional<VerifiedToken> verify(String token) {
+        try {
+            return Optional.of(parse(token)).filter(verified -> !revocationList.isRevoked(verified));
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
     }
 
-    public String getTokenType(String token) {
-        Claims claims = getClaims(token);
-        return claims.get("type", String.class);
+    public boolean validateToken(String token) {
+        return verify(token).isPresent();
     }
 
-    public UUID getUserIdFromToken(String token) {
-        Claims claims = getClaims(token);
-        return UUID.fromString(claims.getSubject());
+    private VerifiedToken parse(String token) {
+        if (verifiedTokens == null) {
+            return VerifiedToken.of(parser.parseSignedClaims(token).getPayload());
+        }
+        String digest = digest(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null && !cached.isExpired()) {
+            return cached;
+        }
+        VerifiedToken verified = VerifiedToken.of(parser.parseSignedClaims(token).getPayload());
+        verifiedTokens.put(digest, verified);
+        return verified;
     }
 
-    private Claims getClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(secretKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
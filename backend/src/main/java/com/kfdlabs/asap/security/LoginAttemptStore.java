@@ -0,0 +1,19 @@
+package com.kfdlabs.asap.security;
+
+/**
+ * Failed login attempts per account, counted in a time window, with a temporary lockout once
+ * {@code app.security.max-login-attempts} is reached within it.
+ * <p>
+ * Selected by {@code app.security.login-attempts.store}: {@code postgres} (default) shares counts
+ * and lockouts between nodes, {@code memory} keeps them on the node.
+ */
+public interface LoginAttemptStore {
+
+    boolean isLocked(String key);
+
+    /** Counts a failed attempt; returns whether the key is locked afterwards. */
+    boolean recordFailure(String key);
+
+    /** Forgets all attempts of the key, after a successful login. */
+    void reset(String key);
+}
@@ -0,0 +1,235 @@
+package com.kfdlabs.asap.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.kfdlabs.asap.cache.CacheInvalidationBus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link LoginAttemptStore} shared by all nodes through {@code login_attempts}.
+ * <p>
+ * Attempts are counted in memory first, so a node answers and locks on its own view right away.
+ * Every {@code app.security.login-attempts.sync-interval} the failures recorded since the last
+ * sync are added to the shared counters in one statement, and the locked keys changed since the
+ * last sync are read back, so a lockout reached through any node applies everywhere within one
+ * interval. Shared lockouts are held in a cache bounded by {@code max-entries}, each dropped when
+ * it runs out. Resets go out over the {@link CacheInvalidationBus}. Keys are stored as SHA-256 digests.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "app.security.login-attempts.store", havingValue = "postgres", matchIfMissing = true)
+public class PostgresLoginAttemptStore extends InMemoryLoginAttemptStore {
+
+    private static final String TOPIC = "login-attempts";
+    // Rows are stamped with the statement's start time, so one written just before the previous
+    // read may commit after it with an older updated_at
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(5);
+
+    private static final String ADD_FAILURES_SQL = """
+            INSERT INTO login_attempts AS a (key_hash, failures, window_start, locked_until, updated_at)
+            SELECT d.key_hash, d.failures, now(),
+                   CASE WHEN d.failures >= ? THEN now() + ? * INTERVAL '1 second' END, now()
+            FROM unnest(?::text[], ?::int[]) AS d(key_hash, failures)
+            ON CONFLICT (key_hash) DO UPDATE SET
+                failures = CASE WHEN a.window_start < now() - ? * INTERVAL '1 second'
+                                THEN EXCLUDED.failures ELSE a.failures + EXCLUDED.failures END,
+                window_start = CASE WHEN a.window_start < now() - ? * INTERVAL '1 second'
+                                    THEN now() ELSE a.window_start END,
+                locked_until = CASE WHEN (CASE WHEN a.window_start < now() - ? * INTERVAL '1 second'
+                                               THEN EXCLUDED.failures ELSE a.failures + EXCLUDED.failures END) >= ?
+                                    THEN GREATEST(a.locked_until, now() + ? * INTERVAL '1 second')
+                                    ELSE a.locked_until END,
+                updated_at = now()
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheInvalidationBus invalidationBus;
+
+    private final Map<String, AtomicInteger> pendingFailures = new ConcurrentHashMap<>();
+    private final Set<String> pendingResets = ConcurrentHashMap.newKeySet();
+    private final Cache<String, Instant> sharedLocks;
+    private volatile Instant syncedUntil = Instant.EPOCH;
+
+    public PostgresLoginAttemptStore(JdbcTemplate jdbcTemplate,
+                                     CacheInvalidationBus invalidationBus,
+                                     @Value("${app.security.max-login-attempts:5}") int maxAttempts,
+                                     @Value("${app.security.lockout-duration-minutes:15}") int lockoutMinutes,
+                                     @Value("${app.security.login-attempts.window:15m}") Duration window,
+                                     @Value("${app.security.login-attempts.max-entries:100000}") long maxEntries) {
+        super(maxAttempts, lockoutMinutes, window, maxEntries);
+        this.jdbcTemplate = jdbcTemplate;
+        this.invalidationBus = invalidationBus;
+        this.sharedLocks = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new UntilLockedUntil())
+                .build();
+        invalidationBus.subscribe(TOPIC, this::evict);
+    }
+
+    @Override
+    public boolean isLocked(String key) {
+        String hash = hash(key);
+        return super.isLocked(hash) || isSharedLocked(hash);
+    }
+
+    @Override
+    public boolean recordFailure(String key) {
+        String hash = hash(key);
+        pendingFailures.computeIfAbsent(hash, k -> new AtomicInteger()).incrementAndGet();
+        return super.recordFailure(hash) || isSharedLocked(hash);
+    }
+
+    @Override
+    public void reset(String key) {
+        String hash = hash(key);
+        pendingFailures.remove(hash);
+        pendingResets.add(hash);
+        invalidationBus.publish(TOPIC, hash);
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.login-attempts.sync-interval:1000}")
+    public void sync() {
+        List<String> resets = drain(pendingResets);
+        Map<String, Integer> failures = new HashMap<>();
+        for (String hash : List.copyOf(pendingFailures.keySet())) {
+            AtomicInteger count = pendingFailures.remove(hash);
+            if (count != null && count.get() > 0) {
+                failures.put(hash, count.get());
+            }
+        }
+
+        try {
+            if (!resets.isEmpty()) {
+                jdbcTemplate.update(connection -> {
+                    PreparedStatement ps = connection.prepareStatement("DELETE FROM login_attempts WHERE key_hash = ANY(?::text[])");
+                    ps.setArray(1, connection.createArrayOf("text", resets.toArray()));
+                    return ps;
+                });
+            }
+            if (!failures.isEmpty()) {
+                List<String> hashes = new ArrayList<>(failures.keySet());
+                jdbcTemplate.update(connection -> {
+                    PreparedStatement ps = connection.prepareStatement(ADD_FAILURES_SQL);
+                    ps.setInt(1, maxAttempts);
+                    ps.setLong(2, lockout.toSeconds());
+                    ps.setArray(3, connection.createArrayOf("text", hashes.toArray()));
+                    ps.setArray(4, connection.createArrayOf("integer", hashes.stream().map(failures::get).toArray()));
+                    ps.setLong(5, window.toSeconds());
+                    ps.setLong(6, window.toSeconds());
+                    ps.setLong(7, window.toSeconds());
+                    ps.setInt(8, maxAttempts);
+                    ps.setLong(9, lockout.toSeconds());
+                    return ps;
+                });
+            }
+
+            Instant[] latest = {syncedUntil};
+            jdbcTemplate.query("""
+                            SELECT key_hash, locked_until, updated_at FROM login_attempts
+                            WHERE updated_at > ? AND locked_until > now()
+                            """,
+                    rs -> {
+                        sharedLocks.put(rs.getString(1), rs.getTimestamp(2).toInstant());
+                        Instant updatedAt = rs.getTimestamp(3).toInstant();
+                        if (updatedAt.isAfter(latest[0])) latest[0] = updatedAt;
+                    }, Timestamp.from(syncedUntil.minus(SYNC_OVERLAP)));
+            syncedUntil = latest[0];
+        } catch (Exception e) {
+            // Counted again on the next round; until then this node locks on its own counts
+            log.warn("Failed to sync login attempts", e);
+            pendingResets.addAll(resets);
+            failures.forEach((hash, count) ->
+                    pendingFailures.computeIfAbsent(hash, k -> new AtomicInteger()).addAndGet(count));
+        }
+    }
+
+    @Scheduled(fixedRate = 1000 * 60 * 60)
+    public void clearExpired() {
+        try {
+            jdbcTemplate.update("""
+                    DELETE FROM login_attempts
+                    WHERE window_start < now() - ? * INTERVAL '1 second'
+                      AND (locked_until IS NULL OR locked_until < now())
+                    """, window.toSeconds());
+        } catch (Exception e) {
+            log.error("Failed to clear login attempts", e);
+        }
+    }
+
+    private boolean isSharedLocked(String hash) {
+        Instant lockedUntil = sharedLocks.getIfPresent(hash);
+        return lockedUntil != null && lockedUntil.isAfter(Instant.now());
+    }
+
+    private void evict(String hash) {
+        if (CacheInvalidationBus.ALL.equals(hash)) {
+            resetAll();
+            sharedLocks.invalidateAll();
+            // Notifications may have been missed meanwhile; read all active lockouts again
+            syncedUntil = Instant.EPOCH;
+            return;
+        }
+        super.reset(hash);
+        sharedLocks.invalidate(hash);
+    }
+
+    /** Expires each shared lockout at its {@code locked_until}. */
+    private static final class UntilLockedUntil implements Expiry<String, Instant> {
+
+        @Override
+        public long expireAfterCreate(String key, Instant lockedUntil, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), lockedUntil).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Instant lockedUntil, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, lockedUntil, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Instant lockedUntil, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    private static List<String> drain(Set<String> pending) {
+        List<String> drained = new ArrayList<>();
+        for (String value : List.copyOf(pending)) {
+            if (pending.remove(value)) {
+                drained.add(value);
+            }
+        }
+        return drained;
+    }
+
+    private static String hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.kfdlabs.asap.security;
+
+import com.kfdlabs.asap.cache.CacheInvalidationBus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revoked JWTs, checked on every request without touching the database.
+ * <p>
+ * A single token is revoked by its {@code jti} (logout); all tokens of a user, in one organization
+ * or in all of them, by an issued-until cutoff (password reset, membership removal). Revoked ids
+ * sit behind a {@link UuidBloomFilter}, so the usual not-revoked answer is a few bit reads, and
+ * only filter hits consult the exact set. Cutoffs are a map lookup per token.
+ * <p>
+ * Revocations are written to {@code revoked_tokens} and {@code token_revocation_cutoffs} and reach
+ * the other nodes through the {@link CacheInvalidationBus} once they commit. As a backstop every
+ * {@code app.security.token-revocation.sync-interval} the rows written since the newest one already
+ * read are loaded, so a gap in notifications or failed syncs is caught up on the next successful
+ * round. Once an hour, and whenever the bus reconnects, the expired rows are dropped and the
+ * state is rebuilt from the tables.
+ */
+@Slf4j
+@Component
+public class TokenRevocationList {
+
+    private static final String TOPIC = "token-revocations";
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final String ALL_ORGANIZATIONS = "-";
+    // Rows are stamped when their statement starts, so one may commit after a later-stamped row was read
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(5);
+
+    private static final String UPSERT_CUTOFF_SQL = """
+            INSERT INTO token_revocation_cutoffs AS c (user_id, organization_id, issued_until)
+            VALUES (?, ?, ?)
+            ON CONFLICT (user_id, COALESCE(organization_id, '00000000-0000-0000-0000-000000000000'::uuid))
+            DO UPDATE SET issued_until = GREATEST(c.issued_until, EXCLUDED.issued_until), updated_at = now()
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheInvalidationBus invalidationBus;
+    private final int expectedTokens;
+    private final Duration refreshTokenValidity;
+
+    private volatile RevokedIds revokedIds;
+    private volatile Map<Cutoff, Instant> cutoffs = new ConcurrentHashMap<>();
+    private volatile Instant revokedSyncedUntil = Instant.EPOCH;
+    private volatile Instant cutoffsSyncedUntil = Instant.EPOCH;
+
+    public TokenRevocationList(JdbcTemplate jdbcTemplate,
+                               CacheInvalidationBus invalidationBus,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.security.token-revocation.expected-tokens:100000}") int expectedTokens,
+                               @Value("${jwt.refresh-token-validity:86400000}") long refreshTokenValidityInMilliseconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.invalidationBus = invalidationBus;
+        this.expectedTokens = expectedTokens;
+        this.refreshTokenValidity = Duration.ofMillis(refreshTokenValidityInMilliseconds);
+        this.revokedIds = new RevokedIds(expectedTokens);
+        Gauge.builder("jwt.revoked.tokens", this, list -> list.revokedIds.ids().size())
+                .description("Revoked token ids held in memory")
+                .register(meterRegistry);
+        invalidationBus.subscribe(TOPIC, this::apply);
+    }
+
+    private record Cutoff(UUID userId, UUID organizationId) {
+    }
+
+    private record RevokedIds(UuidBloomFilter filter, Set<UUID> ids) {
+
+        RevokedIds(int expected) {
+            this(new UuidBloomFilter(expected, FALSE_POSITIVE_RATE), ConcurrentHashMap.newKeySet());
+        }
+
+        void add(UUID id) {
+            // Filter first, so a concurrent lookup that finds the id in the set also passes the filter
+            filter.put(id);
+            ids.add(id);
+        }
+
+        boolean contains(UUID id) {
+            return filter.mightContain(id) && ids.contains(id);
+        }
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        if (token.id() != null && revokedIds.contains(token.id())) {
+            return true;
+        }
+        Map<Cutoff, Instant> current = cutoffs;
+        if (current.isEmpty() || token.issuedAt() == null) {
+            return false;
+        }
+        UUID userId = token.userId();
+        return isCutOff(current.get(new Cutoff(userId, null)), token)
+                || token.organizationId() != null && isCutOff(current.get(new Cutoff(userId, token.organizationId())), token);
+    }
+
+    /** Revokes one token, typically on logout. */
+    public void revoke(VerifiedToken token) {
+        if (token.id() == null) {
+            // Issued before tokens carried a jti; only a cutoff can reach it
+            revokeAll(token.userId(), token.organizationId());
+            return;
+        }
+        Instant expiresAt = token.expiresAt() != null ? token.expiresAt() : Instant.now().plus(refreshTokenValidity);
+        jdbcTemplate.update("INSERT INTO revoked_tokens (jti, user_id, expires_at) VALUES (?, ?, ?) ON CONFLICT (jti) DO NOTHING",
+                token.id(), token.userId(), Timestamp.from(expiresAt));
+        invalidationBus.publish(TOPIC, token.id().toString());
+    }
+
+    /** Revokes every token the user holds, in any organization. */
+    public void revokeAll(UUID userId) {
+        revokeAll(userId, null);
+    }
+
+    /** Revokes every token the user holds in the organization, or in any organization if it is {@code null}. */
+    public void revokeAll(UUID userId, UUID organizationId) {
+        // JWT iat has second precision, so tokens issued later within this second are revoked as well
+        Instant issuedUntil = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        jdbcTemplate.update(UPSERT_CUTOFF_SQL, userId, organizationId, Timestamp.from(issuedUntil));
+        invalidationBus.publish(TOPIC, String.join(":", userId.toString(),
+                organizationId != null ? organizationId.toString() : ALL_ORGANIZATIONS,
+                Long.toString(issuedUntil.getEpochSecond())));
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.token-revocation.sync-interval:5000}")
+    public void sync() {
+        try {
+            RevokedIds current = revokedIds;
+            Instant[] latestRevoked = {revokedSyncedUntil};
+            jdbcTemplate.query("SELECT jti, revoked_at FROM revoked_tokens WHERE revoked_at > ?",
+                    rs -> {
+                        current.add(rs.getObject(1, UUID.class));
+                        latestRevoked[0] = latest(latestRevoked[0], rs.getTimestamp(2).toInstant());
+                    }, Timestamp.from(revokedSyncedUntil.minus(SYNC_OVERLAP)));
+            revokedSyncedUntil = latestRevoked[0];
+
+            Map<Cutoff, Instant> currentCutoffs = cutoffs;
+            Instant[] latestCutoff = {cutoffsSyncedUntil};
+            jdbcTemplate.query("""
+                            SELECT user_id, organization_id, issued_until, updated_at FROM token_revocation_cutoffs
+                            WHERE updated_at > ?
+                            """,
+                    rs -> {
+                        mergeCutoff(currentCutoffs, new Cutoff(rs.getObject(1, UUID.class), rs.getObject(2, UUID.class)),
+                                rs.getTimestamp(3).toInstant());
+                        latestCutoff[0] = latest(latestCutoff[0], rs.getTimestamp(4).toInstant());
+                    }, Timestamp.from(cutoffsSyncedUntil.minus(SYNC_OVERLAP)));
+            cutoffsSyncedUntil = latestCutoff[0];
+        } catch (Exception e) {
+            // Revocations still arrive over the bus; the next round reads from the same point again
+            log.warn("Failed to sync token revocations", e);
+        }
+    }
+
+    /** Drops expired revocations and rebuilds the in-memory state from the tables; also runs at startup. */
+    @Scheduled(fixedRate = 1000 * 60 * 60)
+    public void rebuild() {
+        try {
+            jdbcTemplate.update("DELETE FROM revoked_tokens WHERE expires_at < now()");
+            // Any token issued before a cutoff this old has expired on its own
+            jdbcTemplate.update("DELETE FROM token_revocation_cutoffs WHERE issued_until < now() - ? * INTERVAL '1 second'",
+                    refreshTokenValidity.toSeconds());
+
+            List<UUID> ids = new ArrayList<>();
+            Instant[] latestRevoked = {Instant.EPOCH};
+            jdbcTemplate.query("SELECT jti, revoked_at FROM revoked_tokens", rs -> {
+                ids.add(rs.getObject(1, UUID.class));
+                latestRevoked[0] = latest(latestRevoked[0], rs.getTimestamp(2).toInstant());
+            });
+            Map<Cutoff, Instant> loaded = new ConcurrentHashMap<>();
+            Instant[] latestCutoff = {Instant.EPOCH};
+            jdbcTemplate.query("SELECT user_id, organization_id, issued_until, updated_at FROM token_revocation_cutoffs", rs -> {
+                mergeCutoff(loaded, new Cutoff(rs.getObject(1, UUID.class), rs.getObject(2, UUID.class)),
+                        rs.getTimestamp(3).toInstant());
+                latestCutoff[0] = latest(latestCutoff[0], rs.getTimestamp(4).toInstant());
+            });
+
+            // Room to grow until the next rebuild without the false positive rate degrading
+            RevokedIds rebuilt = new RevokedIds(Math.max(expectedTokens, ids.size() * 2));
+            ids.forEach(rebuilt::add);
+            revokedIds = rebuilt;
+            cutoffs = loaded;
+            revokedSyncedUntil = latestRevoked[0];
+            cutoffsSyncedUntil = latestCutoff[0];
+            log.debug("Loaded {} revoked tokens and {} revocation cutoffs", ids.size(), loaded.size());
+        } catch (Exception e) {
+            log.error("Failed to rebuild token revocation list", e);
+        }
+    }
+
+    private void apply(String key) {
+        if (CacheInvalidationBus.ALL.equals(key)) {
+            // Notifications may have been missed while the listener was away, for however long
+            rebuild();
+            return;
+        }
+        String[] parts = key.split(":");
+        if (parts.length == 1) {
+            revokedIds.add(UUID.fromString(parts[0]));
+        } else if (parts.length == 3) {
+            UUID organizationId = ALL_ORGANIZATIONS.equals(parts[1]) ? null : UUID.fromString(parts[1]);
+            mergeCutoff(cutoffs, new Cutoff(UUID.fromString(parts[0]), organizationId),
+                    Instant.ofEpochSecond(Long.parseLong(parts[2])));
+        }
+    }
+
+    private static boolean isCutOff(Instant issuedUntil, VerifiedToken token) {
+        return issuedUntil != null && !token.issuedAt().isAfter(issuedUntil);
+    }
+
+    private static Instant latest(Instant a, Instant b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static void mergeCutoff(Map<Cutoff, Instant> cutoffs, Cutoff cutoff, Instant issuedUntil) {
+        cutoffs.merge(cutoff, issuedUntil, (a, b) -> a.isAfter(b) ? a : b);
+    }
+}
@@ -0,0 +1,44 @@
+package com.kfdlabs.asap.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Claims of a JWT whose signature and expiry have been checked, extracted once so the request
+ * filters and services do not parse the token again. {@code id} is the {@code jti}, absent on
+ * tokens issued before revocation was introduced.
+ */
+public record VerifiedToken(UUID id, String subject, String email, UUID organizationId, String type,
+                            Instant issuedAt, Instant expiresAt) {
+
+    static VerifiedToken of(Claims claims) {
+        String jti = claims.getId();
+        String orgId = claims.get("organizationId", String.class);
+        return new VerifiedToken(
+                jti != null ? UUID.fromString(jti) : null,
+                claims.getSubject(),
+                claims.get("email", String.class),
+                orgId != null ? UUID.fromString(orgId) : null,
+                claims.get("type", String.class),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null);
+    }
+
+    public UUID userId() {
+        return UUID.fromString(subject);
+    }
+
+    public boolean isAccess() {
+        return "access".equals(type);
+    }
+
+    public boolean isRefresh() {
+        return "refresh".equals(type);
+    }
+
+    boolean isExpired() {
+        return expiresAt != null && !Instant.now().isBefore(expiresAt);
+    }
+}
@@ -0,0 +1,76 @@
+package com.kfdlabs.asap.service;
+
+import com.kfdlabs.asap.cache.ApiKeyCache;
+import com.kfdlabs.asap.dto.CreateApiKeyRequest;
+import com.kfdlabs.asap.entity.ApiKey;
+import com.kfdlabs.asap.repository.ApiKeyRepository;
+import com.kfdlabs.asap.security.ApiKeyCodec;
+import com.kfdlabs.asap.security.SecurityUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class ApiKeyService {
+
+    private final ApiKeyRepository apiKeyRepository;
+    private final ApiKeyCodec apiKeyCodec;
+    private final ApiKeyCache apiKeyCache;
+
+    /** Created key and its plain value, which is not stored and only returned here. */
+    public record CreatedApiKey(ApiKey apiKey, String key) {}
+
+    @Transactional(readOnly = true)
+    public List<ApiKey> listApiKeys() {
+        return apiKeyRepository.findByOrganizationIdOrderByCreatedAtDesc(SecurityUtils.getCurrentOrganizationId());
+    }
+
+    public CreatedApiKey createApiKey(CreateApiKeyRequest request) {
+        // Only users create keys, so a key can never mint another one
+        UUID userId = SecurityUtils.getCurrentUserId();
+        UUID orgId = SecurityUtils.getCurrentOrganizationId();
+
+        ApiKeyCodec.GeneratedKey generated = apiKeyCodec.generate();
+        while (apiKeyRepository.existsByPrefix(generated.prefix())) {
+            generated = apiKeyCodec.generate();
+        }
+
+        ApiKey apiKey = new ApiKey();
+        apiKey.setOrganizationId(orgId);
+        apiKey.setName(request.getName());
+        apiKey.setPrefix(generated.prefix());
+        apiKey.setKeyHash(apiKeyCodec.hash(generated.key()));
+        apiKey.setScopes(request.getScopes().stream().map(com.kfdlabs.asap.dto.ApiKeyScope::getValue).distinct().toList());
+        apiKey.setCreatedBy(userId);
+        apiKey.setExpiresAt(request.getExpiresAt());
+        apiKey = apiKeyRepository.save(apiKey);
+
+        // Drops a cached miss for the prefix, should anyone have probed it
+        apiKeyCache.invalidate(generated.prefix());
+        log.info("API key {} created in organization {}", apiKey.getId(), orgId);
+        return new CreatedApiKey(apiKey, generated.key());
+    }
+
+    public void revokeApiKey(UUID id) {
+        // Keys are managed by users only
+        SecurityUtils.getCurrentUserId();
+        ApiKey apiKey = apiKeyRepository.findByIdAndOrganizationId(id, SecurityUtils.getCurrentOrganizationId())
+                .orElseThrow(() -> new HttpClientErrorException(HttpStatus.NOT_FOUND, "error.api.key.not.found"));
+        if (apiKey.getRevokedAt() == null) {
+            apiKey.setRevokedAt(LocalDateTime.now());
+            apiKeyRepository.save(apiKey);
+            apiKeyCache.invalidate(apiKey.getPrefix());
+            log.info("API key {} revoked", apiKey.getId());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.kfdlabs.asap.service;
+
+import com.kfdlabs.asap.entity.CustomFieldValue;
+import com.kfdlabs.asap.entity.Tag;
+import com.kfdlabs.asap.entity.TagGroupMember;
+import com.kfdlabs.asap.util.BatchLoader;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-request {@link BatchLoader}s for the associations mappers render, so a page of N items
+ * costs one IN query per association instead of N. Mappers register the ids of the whole page
+ * before mapping items one by one.
+ */
+@Component
+@RequestScope
+@RequiredArgsConstructor
+public class AssociationLoaders {
+
+    private final TagService tagService;
+    private final EntityTagService entityTagService;
+    private final EntityCustomFieldService entityCustomFieldService;
+
+    private final Map<String, BatchLoader<UUID, List<Tag>>> entityTags = new HashMap<>();
+    private BatchLoader<UUID, List<TagGroupMember>> tagGroupMembers;
+    private BatchLoader<UUID, List<CustomFieldValue>> customFieldValues;
+
+    /** Members of a tag group in display order, keyed by group id. */
+    public BatchLoader<UUID, List<TagGroupMember>> tagGroupMembers() {
+        if (tagGroupMembers == null) {
+            tagGroupMembers = new BatchLoader<>(
+                    ids -> tagService.getTagGroupMembersBatch(new ArrayList<>(ids)), List.of());
+        }
+        return tagGroupMembers;
+    }
+
+    /** Tags assigned to entities of the given type, keyed by entity id. */
+    public BatchLoader<UUID, List<Tag>> entityTags(String entityType) {
+        return entityTags.computeIfAbsent(entityType, type -> new BatchLoader<>(
+                ids -> entityTagService.getEntityTagsBatch(type, new ArrayList<>(ids)), List.of()));
+    }
+
+    /** Custom field values with their definitions, keyed by entity id. */
+    public BatchLoader<UUID, List<CustomFieldValue>> customFieldValues() {
+        if (customFieldValues == null) {
+            customFieldValues = new BatchLoader<>(
+                    ids -> entityCustomFieldService.getEntityCustomFieldValuesBatch(new ArrayList<>(ids)), List.of());
+        }
+        return customFieldValues;
+    }
+}
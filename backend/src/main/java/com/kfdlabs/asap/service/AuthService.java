@@ -9,23 +9,23 @@ import com.kfdlabs.asap.repository.LoginLinkRepository;
 import com.kfdlabs.asap.repository.OrganizationMemberRepository;
 import com.kfdlabs.asap.repository.PasswordResetTokenRepository;
 import com.kfdlabs.asap.security.JwtUtil;
+import com.kfdlabs.asap.security.LoginAttemptStore;
+import com.kfdlabs.asap.security.PasswordHasher;
 import com.kfdlabs.asap.security.SecurityUtils;
+import com.kfdlabs.asap.security.TokenRevocationList;
+import com.kfdlabs.asap.security.VerifiedToken;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.HttpClientErrorException;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
@@ -43,7 +43,9 @@ public class AuthService {
     private final TwoFactorService twoFactorService;
     private final JwtUtil jwtUtil;
     private final OrganizationMemberRepository organizationMemberRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final LoginAttemptStore loginAttemptStore;
+    private final TokenRevocationList tokenRevocationList;
 
     @Value("${app.mail.link-expiration-minutes:15}")
     private int loginLinkExpirationMinutes;
@@ -51,37 +53,35 @@ public class AuthService {
     @Value("${app.mail.reset-expiration-hours:1}")
     private int passwordResetExpirationHours;
 
-    @Value("${app.security.max-login-attempts:5}")
-    private int maxLoginAttempts;
-
-    @Value("${app.security.lockout-duration-minutes:15}")
-    private int lockoutDurationMinutes;
-
-    private record LoginAttemptInfo(AtomicInteger attempts, LocalDateTime lockoutUntil) {}
-    private final Map<String, LoginAttemptInfo> loginAttempts = new ConcurrentHashMap<>();
-
     private void checkLoginAttempts(String email) {
-        LoginAttemptInfo info = loginAttempts.get(email.toLowerCase());
-        if (info != null && info.lockoutUntil() != null && info.lockoutUntil().isAfter(LocalDateTime.now())) {
+        if (loginAttemptStore.isLocked(email.toLowerCase())) {
             log.warn("Account locked due to too many failed login attempts: {}", email);
             throw new HttpClientErrorException(TOO_MANY_REQUESTS, "error.account.temporarily.locked");
         }
     }
 
+    // Upgrades hashes made with a lower cost than configured while the plain password is at hand
+    private void rehashIfNeeded(User user, String rawPassword) {
+        if (!passwordHasher.needsRehash(user.getPasswordHash())) {
+            return;
+        }
+        try {
+            userService.setUserPassword(user.getEmail(), passwordHasher.encode(rawPassword));
+            log.info("Rehashed password of user {} with the current cost", user.getId());
+        } catch (Exception e) {
+            // Tried again on the next login
+            log.warn("Failed to rehash password of user {}", user.getId(), e);
+        }
+    }
+
     private void recordFailedAttempt(String email) {
-        String key = email.toLowerCase();
-        LoginAttemptInfo info = loginAttempts.computeIfAbsent(key,
-                k -> new LoginAttemptInfo(new AtomicInteger(0), null));
-        int attempts = info.attempts().incrementAndGet();
-        if (attempts >= maxLoginAttempts) {
-            loginAttempts.put(key, new LoginAttemptInfo(
-                    info.attempts(), LocalDateTime.now().plusMinutes(lockoutDurationMinutes)));
-            log.warn("Account locked after {} failed attempts: {}", attempts, email);
+        if (loginAttemptStore.recordFailure(email.toLowerCase())) {
+            log.warn("Account locked after too many failed attempts: {}", email);
         }
     }
 
     private void clearLoginAttempts(String email) {
-        loginAttempts.remove(email.toLowerCase());
+        loginAttemptStore.reset(email.toLowerCase());
     }
 
     @Transactional
@@ -164,17 +164,15 @@ public class AuthService {
     public AuthResponse refreshToken(String refreshToken) {
         log.info("Refreshing token");
 
-        if (!jwtUtil.validateToken(refreshToken)) {
-            throw new HttpClientErrorException(BAD_REQUEST, "error.refresh.token.invalid");
-        }
+        VerifiedToken token = jwtUtil.verify(refreshToken)
+                .orElseThrow(() -> new HttpClientErrorException(BAD_REQUEST, "error.refresh.token.invalid"));
 
-        if (!"refresh".equals(jwtUtil.getTokenType(refreshToken))) {
+        if (!token.isRefresh()) {
             throw new HttpClientErrorException(BAD_REQUEST, "error.refresh.token.not.refresh");
         }
 
-        UUID organizationId = jwtUtil.getOrganizationIdFromToken(refreshToken);
-        String email = jwtUtil.getEmailFromToken(refreshToken);
-        User user = userService.getUserByEmail(email);
+        UUID organizationId = token.organizationId();
+        User user = userService.getUserByEmail(token.email());
 
         String newAccessToken = jwtUtil.generateAccessToken(organizationId, user.getId(), user.getEmail());
         String newRefreshToken = jwtUtil.generateRefreshToken(organizationId, user.getId(), user.getEmail());
@@ -182,6 +180,19 @@ public class AuthService {
         return buildAuthResponse(newAccessToken, newRefreshToken);
     }
 
+    @Transactional
+    public void logout(VerifiedToken accessToken, String refreshToken) {
+        if (accessToken != null) {
+            tokenRevocationList.revoke(accessToken);
+        }
+        if (StringUtils.isNotBlank(refreshToken)) {
+            jwtUtil.verify(refreshToken)
+                    .filter(VerifiedToken::isRefresh)
+                    .ifPresent(tokenRevocationList::revoke);
+        }
+        log.info("User logged out: {}", accessToken != null ? accessToken.email() : "unknown");
+    }
+
     @Transactional
     public AuthResponse authenticateWithGoogle(String email) {
         log.info("Authenticating user with Google: {}", email);
@@ -239,10 +250,11 @@ public class AuthService {
         }
 
         Optional<String> userPassword = Optional.ofNullable(user.getPasswordHash());
-        if (userPassword.isEmpty() || !passwordEncoder.matches(request.getPassword(), userPassword.get())) {
+        if (userPassword.isEmpty() || !passwordHasher.matches(request.getPassword(), userPassword.get())) {
             recordFailedAttempt(request.getEmail());
             throw new HttpClientErrorException(BAD_REQUEST, "error.credentials.invalid");
         }
+        rehashIfNeeded(user, request.getPassword());
 
         if (twoFactorService.isTwoFactorEnabled(request.getEmail())) {
             if (StringUtils.isBlank(request.getTwoFactorAuthCode())) {
@@ -312,7 +324,9 @@ public class AuthService {
             throw new HttpClientErrorException(BAD_REQUEST, "error.token.expired");
         }
 
-        userService.setUserPassword(resetToken.getEmail(), passwordEncoder.encode(request.getNewPassword()));
+        userService.setUserPassword(resetToken.getEmail(), passwordHasher.encode(request.getNewPassword()));
+        // Sessions opened with the old password end here
+        tokenRevocationList.revokeAll(userService.getUserByEmail(resetToken.getEmail()).getId());
 
         resetToken.setUsed(true);
         passwordResetTokenRepository.save(resetToken);
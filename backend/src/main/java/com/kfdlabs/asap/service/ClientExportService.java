@@ -0,0 +1,210 @@
+package com.kfdlabs.asap.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.kfdlabs.asap.cache.CustomFieldCache;
+import com.kfdlabs.asap.dto.SearchClientsRequest;
+import com.kfdlabs.asap.entity.Client;
+import com.kfdlabs.asap.entity.CustomFieldDefinition;
+import com.kfdlabs.asap.repository.ClientRepository;
+import com.kfdlabs.asap.repository.ClientRepositoryCustom.ExportRow;
+import com.kfdlabs.asap.repository.CustomFieldValueRepository;
+import com.kfdlabs.asap.repository.EntityTagRepository;
+import com.kfdlabs.asap.security.SecurityUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Streams a filtered client list as CSV or NDJSON.
+ * <p>
+ * Clients are read from a forward-only cursor in a read-only transaction and written in chunks of
+ * {@link #CHUNK_SIZE}; tags and custom field values are loaded per chunk, so memory use does not
+ * depend on the number of matching rows. The layout matches what {@link ClientImportService} reads:
+ * tags are {@code ;}-separated and every custom field of the organization gets a {@code cf.<fieldKey>}
+ * column in CSV, while NDJSON rows carry a {@code tags} array and a {@code customFields} object.
+ */
+@Service
+@RequiredArgsConstructor
+public class ClientExportService {
+
+    static final int CHUNK_SIZE = 1_000;
+
+    private static final List<String> CLIENT_COLUMNS = List.of("id", "name", "type", "email", "phone", "website",
+            "notes", "externalAccountingId", "pricingTier", "isActive", "createdAt", "updatedAt", "tags");
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final CsvMapper CSV = new CsvMapper();
+
+    private final ClientService clientService;
+    private final ClientRepository clientRepository;
+    private final EntityTagRepository entityTagRepository;
+    private final CustomFieldValueRepository cfvRepository;
+    private final CustomFieldCache customFieldCache;
+
+    @Transactional(readOnly = true)
+    public void exportClients(SearchClientsRequest request, String format, OutputStream out) throws IOException {
+        boolean csv = format == null || "csv".equals(format);
+        if (!csv && !"ndjson".equals(format)) {
+            throw new HttpClientErrorException(HttpStatus.BAD_REQUEST, "error.client.export.format.invalid");
+        }
+        UUID orgId = SecurityUtils.getCurrentOrganizationId();
+        Specification<Client> spec = clientService.searchSpecification(request);
+        Sort sort = Sort.by(request.getOrder() != null && "asc".equals(request.getOrder().getValue())
+                        ? Sort.Direction.ASC : Sort.Direction.DESC,
+                request.getSortBy() != null ? request.getSortBy() : "createdAt");
+        List<CustomFieldDefinition> definitions = customFieldCache.getDefinitions(orgId);
+
+        try (RowWriter writer = csv ? new CsvRowWriter(out, definitions) : new NdjsonRowWriter(out);
+             Stream<ExportRow> rows = clientRepository.streamExportRows(spec, sort, CHUNK_SIZE)) {
+            List<ExportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+            Iterator<ExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == CHUNK_SIZE || !iterator.hasNext()) {
+                    writeChunk(chunk, definitions, writer);
+                    chunk.clear();
+                }
+            }
+        }
+    }
+
+    private void writeChunk(List<ExportRow> chunk, List<CustomFieldDefinition> definitions, RowWriter writer)
+            throws IOException {
+        List<UUID> ids = chunk.stream().map(ExportRow::id).toList();
+
+        Map<UUID, List<String>> tagsByClient = new HashMap<>();
+        for (Object[] row : entityTagRepository.findTagNamesByEntityIds("CLIENT", ids)) {
+            tagsByClient.computeIfAbsent(UUID.fromString((String) row[0]), k -> new ArrayList<>()).add((String) row[1]);
+        }
+        Map<UUID, String> keysById = new HashMap<>();
+        definitions.forEach(def -> keysById.put(def.getId(), def.getFieldKey()));
+        Map<UUID, Map<String, Object>> valuesByClient = new HashMap<>();
+        for (Object[] row : cfvRepository.findRawValuesByEntityIds(ids)) {
+            String key = keysById.get(UUID.fromString((String) row[1]));
+            if (key == null) continue;
+            valuesByClient.computeIfAbsent(UUID.fromString((String) row[0]), k -> new HashMap<>())
+                    .put(key, parseJsonb((String) row[2]));
+        }
+
+        for (ExportRow client : chunk) {
+            writer.write(client, tagsByClient.getOrDefault(client.id(), List.of()),
+                    valuesByClient.getOrDefault(client.id(), Map.of()));
+        }
+        writer.flush();
+    }
+
+    private static Map<String, Object> clientFields(ExportRow client) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("id", client.id().toString());
+        fields.put("name", client.name());
+        fields.put("type", client.type());
+        fields.put("email", client.email());
+        fields.put("phone", client.phone());
+        fields.put("website", client.website());
+        fields.put("notes", client.notes());
+        fields.put("externalAccountingId", client.externalAccountingId());
+        fields.put("pricingTier", client.pricingTier());
+        fields.put("isActive", client.isActive());
+        fields.put("createdAt", client.createdAt() != null ? client.createdAt().toString() : null);
+        fields.put("updatedAt", client.updatedAt() != null ? client.updatedAt().toString() : null);
+        return fields;
+    }
+
+    private static Object parseJsonb(String raw) {
+        if (raw == null) return null;
+        try {
+            return JSON.readValue(raw, Object.class);
+        } catch (JsonProcessingException e) {
+            return raw;
+        }
+    }
+
+    private interface RowWriter extends AutoCloseable {
+        void write(ExportRow client, List<String> tags, Map<String, Object> customFields) throws IOException;
+
+        void flush() throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private static class CsvRowWriter implements RowWriter {
+
+        private final List<CustomFieldDefinition> definitions;
+        private final SequenceWriter writer;
+
+        CsvRowWriter(OutputStream out, List<CustomFieldDefinition> definitions) throws IOException {
+            this.definitions = definitions;
+            CsvSchema.Builder schema = CsvSchema.builder();
+            CLIENT_COLUMNS.forEach(schema::addColumn);
+            definitions.forEach(def -> schema.addColumn("cf." + def.getFieldKey()));
+            this.writer = CSV.writer(schema.build().withHeader())
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .writeValues(out);
+        }
+
+        @Override
+        public void write(ExportRow client, List<String> tags, Map<String, Object> customFields) throws IOException {
+            Map<String, Object> row = clientFields(client);
+            row.put("tags", String.join(";", tags));
+            for (CustomFieldDefinition def : definitions) {
+                Object value = customFields.get(def.getFieldKey());
+                row.put("cf." + def.getFieldKey(), value instanceof Collection<?> options
+                        ? String.join(";", options.stream().map(String::valueOf).toList())
+                        : value);
+            }
+            writer.write(row);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    private static class NdjsonRowWriter implements RowWriter {
+
+        private final OutputStream out;
+
+        NdjsonRowWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(ExportRow client, List<String> tags, Map<String, Object> customFields) throws IOException {
+            Map<String, Object> row = clientFields(client);
+            row.put("tags", tags);
+            row.put("customFields", customFields);
+            out.write(JSON.writeValueAsBytes(row));
+            out.write('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
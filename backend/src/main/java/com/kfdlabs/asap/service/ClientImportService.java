@@ -0,0 +1,349 @@
+package com.kfdlabs.asap.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.kfdlabs.asap.cache.CustomFieldCache;
+import com.kfdlabs.asap.cache.InUseCache;
+import com.kfdlabs.asap.cache.ResourceVersions;
+import com.kfdlabs.asap.cache.ResourceVersions.ResourceType;
+import com.kfdlabs.asap.entity.Client;
+import com.kfdlabs.asap.entity.CustomFieldDefinition;
+import com.kfdlabs.asap.entity.Tag;
+import com.kfdlabs.asap.repository.ClientRepository;
+import com.kfdlabs.asap.repository.CustomFieldValueRepository;
+import com.kfdlabs.asap.repository.CustomFieldValueRepositoryCustom.ValueRow;
+import com.kfdlabs.asap.repository.EntityTagRepository;
+import com.kfdlabs.asap.repository.TagRepository;
+import com.kfdlabs.asap.security.SecurityUtils;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk client import from CSV or NDJSON.
+ * <p>
+ * The upload is read row by row and written in batches of {@link #BATCH_SIZE}: tag names and
+ * custom field keys are resolved once per batch, then clients, tag assignments and custom field
+ * values are written with set-based statements in one transaction per batch. Rows that fail
+ * validation are reported and skipped; a batch that fails to write is reported row by row.
+ * <p>
+ * Recognized columns / keys: {@code name} (required), {@code type}, {@code email}, {@code phone},
+ * {@code website}, {@code notes}, {@code externalAccountingId}, {@code pricingTier}, {@code isActive},
+ * {@code tags} (tag names, {@code ;}-separated in CSV or an array in NDJSON) and {@code cf.<fieldKey>}
+ * for custom fields (NDJSON may also use a {@code customFields} object keyed by field key).
+ */
+@Slf4j
+@Service
+public class ClientImportService {
+
+    static final int BATCH_SIZE = 1_000;
+    static final int MAX_REPORTED_ERRORS = 1_000;
+
+    private static final String CUSTOM_FIELD_PREFIX = "cf.";
+    private static final Set<String> CLIENT_TYPES = Set.of("COMPANY", "INDIVIDUAL");
+    private static final TypeReference<Map<String, Object>> ROW_TYPE = new TypeReference<>() {};
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final CsvMapper CSV = new CsvMapper();
+
+    private final ClientRepository clientRepository;
+    private final TagRepository tagRepository;
+    private final EntityTagRepository entityTagRepository;
+    private final CustomFieldValueRepository cfvRepository;
+    private final CustomFieldCache customFieldCache;
+    private final InUseCache inUseCache;
+    private final ResourceVersions resourceVersions;
+    private final ClientService clientService;
+    private final TransactionTemplate batchTransaction;
+
+    public ClientImportService(ClientRepository clientRepository, TagRepository tagRepository,
+                               EntityTagRepository entityTagRepository, CustomFieldValueRepository cfvRepository,
+                               CustomFieldCache customFieldCache, InUseCache inUseCache,
+                               ResourceVersions resourceVersions, ClientService clientService,
+                               PlatformTransactionManager transactionManager) {
+        this.clientRepository = clientRepository;
+        this.tagRepository = tagRepository;
+        this.entityTagRepository = entityTagRepository;
+        this.cfvRepository = cfvRepository;
+        this.customFieldCache = customFieldCache;
+        this.inUseCache = inUseCache;
+        this.resourceVersions = resourceVersions;
+        this.clientService = clientService;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    public ImportResult importClients(InputStream input, String format) {
+        UUID orgId = SecurityUtils.getCurrentOrganizationId();
+        ImportResult result = new ImportResult();
+        List<SourceRow> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            readRows(input, format, row -> {
+                batch.add(row);
+                if (batch.size() == BATCH_SIZE) {
+                    writeBatch(orgId, batch, result);
+                    batch.clear();
+                }
+            });
+            writeBatch(orgId, batch, result);
+        } catch (IOException e) {
+            // Batches written so far stay committed
+            log.warn("Client import aborted after {} rows", result.getImported() + result.getFailed(), e);
+            throw new HttpClientErrorException(HttpStatus.BAD_REQUEST, "error.client.import.read.failed");
+        } finally {
+            if (result.getImported() > 0) {
+                clientService.evictClientCount(orgId);
+                inUseCache.invalidateTags(orgId);
+                inUseCache.invalidateFields(orgId);
+                resourceVersions.bump(orgId, ResourceType.CLIENTS, ResourceType.TAG_LINKS, ResourceType.CUSTOM_FIELD_VALUES);
+            }
+        }
+        return result;
+    }
+
+    private void readRows(InputStream input, String format, Consumer<SourceRow> sink) throws IOException {
+        Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+        if ("ndjson".equals(format)) {
+            BufferedReader lines = new BufferedReader(reader);
+            long rowNumber = 0;
+            String line;
+            while ((line = lines.readLine()) != null) {
+                rowNumber++;
+                if (line.isBlank()) continue;
+                Map<String, Object> fields;
+                try {
+                    fields = JSON.readValue(line, ROW_TYPE);
+                } catch (JsonProcessingException e) {
+                    sink.accept(SourceRow.invalid(rowNumber, "error.client.import.row.invalid"));
+                    continue;
+                }
+                sink.accept(new SourceRow(rowNumber, fields, null));
+            }
+        } else if (format == null || "csv".equals(format)) {
+            try (MappingIterator<Map<String, Object>> rows = CSV.readerFor(ROW_TYPE)
+                    .with(CsvSchema.emptySchema().withHeader())
+                    .readValues(reader)) {
+                long rowNumber = 0;
+                while (true) {
+                    rowNumber++;
+                    Map<String, Object> fields;
+                    try {
+                        if (!rows.hasNextValue()) break;
+                        fields = rows.nextValue();
+                    } catch (JsonProcessingException e) {
+                        // A malformed CSV record can't be skipped reliably, so stop at the first one
+                        sink.accept(SourceRow.invalid(rowNumber, "error.client.import.row.invalid"));
+                        break;
+                    }
+                    sink.accept(new SourceRow(rowNumber, fields, null));
+                }
+            }
+        } else {
+            throw new HttpClientErrorException(HttpStatus.BAD_REQUEST, "error.client.import.format.invalid");
+        }
+    }
+
+    private void writeBatch(UUID orgId, List<SourceRow> batch, ImportResult result) {
+        if (batch.isEmpty()) return;
+
+        Set<String> tagNames = batch.stream()
+                .filter(row -> row.error() == null)
+                .flatMap(row -> tagNames(row.fields()).stream())
+                .collect(Collectors.toSet());
+        Map<String, UUID> tagIdsByName = tagNames.isEmpty() ? Map.of()
+                : tagRepository.findByOrganizationIdAndNameIn(orgId, tagNames).stream()
+                        .collect(Collectors.toMap(Tag::getName, Tag::getId));
+
+        List<SourceRow> accepted = new ArrayList<>();
+        List<Client> clients = new ArrayList<>();
+        List<UUID> taggedClientIds = new ArrayList<>();
+        List<UUID> tagIds = new ArrayList<>();
+        List<ValueRow> values = new ArrayList<>();
+        for (SourceRow row : batch) {
+            String error = row.error() != null ? row.error()
+                    : prepare(orgId, row.fields(), tagIdsByName, clients, taggedClientIds, tagIds, values);
+            if (error != null) {
+                result.addError(row.rowNumber(), error);
+            } else {
+                accepted.add(row);
+            }
+        }
+        if (clients.isEmpty()) return;
+
+        try {
+            batchTransaction.executeWithoutResult(status -> {
+                clientRepository.insertAll(clients);
+                entityTagRepository.addTagAssignments(orgId, "CLIENT", taggedClientIds, tagIds);
+                cfvRepository.upsertValues(orgId, values);
+            });
+            result.imported += clients.size();
+        } catch (DataAccessException e) {
+            log.warn("Client import batch of {} rows failed", clients.size(), e);
+            accepted.forEach(row -> result.addError(row.rowNumber(), "error.client.import.batch.failed"));
+        }
+    }
+
+    /**
+     * Validates one row and appends its client, tag assignments and custom field values to the
+     * batch. Returns an error message key instead when the row is rejected; nothing is appended then.
+     */
+    private String prepare(UUID orgId, Map<String, Object> fields, Map<String, UUID> tagIdsByName,
+                           List<Client> clients, List<UUID> taggedClientIds, List<UUID> tagIds,
+                           List<ValueRow> values) {
+        Client client = new Client();
+        client.setId(UUID.randomUUID());
+        client.setOrganizationId(orgId);
+        client.setName(text(fields, "name"));
+        if (client.getName() == null) return "error.client.import.name.required";
+        String type = text(fields, "type");
+        client.setType(type != null ? type.toUpperCase(Locale.ROOT) : "COMPANY");
+        if (!CLIENT_TYPES.contains(client.getType())) return "error.client.import.type.invalid|" + type;
+        client.setEmail(text(fields, "email"));
+        client.setPhone(text(fields, "phone"));
+        client.setWebsite(text(fields, "website"));
+        client.setNotes(text(fields, "notes"));
+        client.setExternalAccountingId(text(fields, "externalAccountingId"));
+        client.setPricingTier(text(fields, "pricingTier"));
+        String isActive = text(fields, "isActive");
+        if (isActive != null && !"true".equalsIgnoreCase(isActive) && !"false".equalsIgnoreCase(isActive)) {
+            return "error.client.import.value.invalid|isActive";
+        }
+        client.setIsActive(isActive == null || Boolean.parseBoolean(isActive));
+
+        String tooLong = tooLong(client);
+        if (tooLong != null) return "error.client.import.value.too.long|" + tooLong;
+
+        List<UUID> rowTagIds = new ArrayList<>();
+        for (String name : tagNames(fields)) {
+            UUID tagId = tagIdsByName.get(name);
+            if (tagId == null) return "error.client.import.tag.not.found|" + name;
+            rowTagIds.add(tagId);
+        }
+
+        List<ValueRow> rowValues = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : customFieldInputs(fields).entrySet()) {
+            CustomFieldDefinition def = customFieldCache.getDefinitionByKey(orgId, entry.getKey()).orElse(null);
+            if (def == null) return "error.client.import.custom_field.not.found|" + entry.getKey();
+            try {
+                Object value = customFieldValue(def, entry.getValue());
+                if (value == null) continue;
+                rowValues.add(new ValueRow(client.getId(), def.getId(), JSON.writeValueAsString(value)));
+            } catch (IllegalArgumentException | JsonProcessingException e) {
+                return "error.client.import.custom_field.invalid|" + entry.getKey();
+            }
+        }
+
+        clients.add(client);
+        rowTagIds.stream().distinct().forEach(tagId -> {
+            taggedClientIds.add(client.getId());
+            tagIds.add(tagId);
+        });
+        values.addAll(rowValues);
+        return null;
+    }
+
+    private static String text(Map<String, Object> fields, String key) {
+        Object value = fields.get(key);
+        if (value == null) return null;
+        String text = String.valueOf(value).trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    private static String tooLong(Client client) {
+        if (client.getName().length() > 255) return "name";
+        if (client.getEmail() != null && client.getEmail().length() > 320) return "email";
+        if (client.getPhone() != null && client.getPhone().length() > 50) return "phone";
+        if (client.getExternalAccountingId() != null && client.getExternalAccountingId().length() > 100) {
+            return "externalAccountingId";
+        }
+        if (client.getPricingTier() != null && client.getPricingTier().length() > 50) return "pricingTier";
+        return null;
+    }
+
+    private static List<String> tagNames(Map<String, Object> fields) {
+        Object tags = fields.get("tags");
+        Collection<?> names = tags instanceof Collection<?> list ? list
+                : tags != null ? Arrays.asList(String.valueOf(tags).split(";")) : List.of();
+        return names.stream()
+                .filter(Objects::nonNull)
+                .map(name -> String.valueOf(name).trim())
+                .filter(name -> !name.isEmpty())
+                .toList();
+    }
+
+    private static Map<String, Object> customFieldInputs(Map<String, Object> fields) {
+        Map<String, Object> inputs = new LinkedHashMap<>();
+        fields.forEach((key, value) -> {
+            if (key.startsWith(CUSTOM_FIELD_PREFIX)) {
+                inputs.put(key.substring(CUSTOM_FIELD_PREFIX.length()), value);
+            }
+        });
+        if (fields.get("customFields") instanceof Map<?, ?> nested) {
+            nested.forEach((key, value) -> inputs.put(String.valueOf(key), value));
+        }
+        return inputs;
+    }
+
+    /**
+     * Converts an imported value for the field's type. CSV cells arrive as text and are parsed
+     * (multi-select options are {@code ;}-separated); typed NDJSON values are kept as given.
+     * Blank values yield {@code null} and are skipped.
+     */
+    private static Object customFieldValue(CustomFieldDefinition def, Object raw) {
+        if (!(raw instanceof String text)) return raw;
+        text = text.trim();
+        if (text.isEmpty()) return null;
+        return switch (def.getFieldType()) {
+            case "NUMBER" -> new BigDecimal(text);
+            case "BOOLEAN" -> {
+                if (!"true".equalsIgnoreCase(text) && !"false".equalsIgnoreCase(text)) {
+                    throw new IllegalArgumentException(text);
+                }
+                yield Boolean.parseBoolean(text);
+            }
+            case "MULTI_SELECT" -> Arrays.stream(text.split(";")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+            default -> text;
+        };
+    }
+
+    private record SourceRow(long rowNumber, Map<String, Object> fields, String error) {
+        static SourceRow invalid(long rowNumber, String error) {
+            return new SourceRow(rowNumber, Map.of(), error);
+        }
+    }
+
+    public record RowError(long row, String message) {}
+
+    /** Outcome of an import; at most {@link #MAX_REPORTED_ERRORS} row errors are kept. */
+    @Getter
+    public static class ImportResult {
+        private long imported;
+        private long failed;
+        private final List<RowError> errors = new ArrayList<>();
+
+        private void addError(long row, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(row, message));
+            }
+        }
+    }
+}
@@ -1,5 +1,11 @@
 package com.kfdlabs.asap.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kfdlabs.asap.cache.CustomFieldCache;
+import com.kfdlabs.asap.cache.ResourceVersions;
+import com.kfdlabs.asap.cache.ResourceVersions.ResourceType;
+import com.kfdlabs.asap.dto.ClientSearchFacetsRequest;
 import com.kfdlabs.asap.dto.CustomFieldFilter;
 import com.kfdlabs.asap.dto.SearchClientsRequest;
 import com.kfdlabs.asap.dto.UpdateClientRequest;
@@ -7,18 +13,24 @@ import com.kfdlabs.asap.dto.CreateClientRequest;
 import com.kfdlabs.asap.entity.Client;
 import com.kfdlabs.asap.entity.CustomFieldDefinition;
 import com.kfdlabs.asap.repository.ClientRepository;
+import com.kfdlabs.asap.repository.ClientRepositoryCustom.ListRow;
 import com.kfdlabs.asap.security.SecurityUtils;
 import com.kfdlabs.asap.specification.EntityFilterSpecifications;
+import com.kfdlabs.asap.util.LookaheadPage;
 import com.kfdlabs.asap.util.PaginationUtils;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.HttpClientErrorException;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.openapitools.jackson.nullable.JsonNullable.undefined;
@@ -31,7 +43,26 @@ public class ClientService {
     private final ClientRepository clientRepository;
     private final EntityTagService entityTagService;
     private final EntityCustomFieldService entityCustomFieldService;
-    private final CustomFieldService customFieldService;
+    private final CustomFieldCache customFieldCache;
+    private final ResourceVersions resourceVersions;
+
+    /** Client totals per organization, used as the estimate for unfiltered searches. */
+    private final Cache<UUID, Long> organizationClientCounts = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofMinutes(5))
+            .build();
+
+    /**
+     * Facet counts per organization and filter set; a short TTL absorbs the repeated requests a
+     * list view makes while paging or toggling unrelated options.
+     */
+    private final Cache<FacetKey, ClientFacets> facetCounts = Caffeine.newBuilder()
+            .maximumSize(1_000)
+            .expireAfterWrite(Duration.ofSeconds(5))
+            .build();
+
+    @Value("${app.clients.count-cap:10000}")
+    private int countCap;
 
     public Client createClient(CreateClientRequest request) {
         UUID orgId = SecurityUtils.getCurrentOrganizationId();
@@ -49,6 +80,8 @@ public class ClientService {
         client.setExternalAccountingId(request.getExternalAccountingId());
         client.setPricingTier(request.getPricingTier());
         client = clientRepository.save(client);
+        organizationClientCounts.invalidate(orgId);
+        resourceVersions.bump(orgId, ResourceType.CLIENTS);
 
         // Set tags if provided
         if (request.getTagIds() != null && !request.getTagIds().isEmpty()) {
@@ -73,6 +106,13 @@ public class ClientService {
                 .orElseThrow(() -> new HttpClientErrorException(HttpStatus.NOT_FOUND, "error.client.not.found"));
     }
 
+    /** The client as {@code ClientResponse} JSON, built by the database without loading entities. */
+    @Transactional(readOnly = true)
+    public String getClientJson(UUID id) {
+        return clientRepository.findResponseJson(id)
+                .orElseThrow(() -> new HttpClientErrorException(HttpStatus.NOT_FOUND, "error.client.not.found"));
+    }
+
     public Client updateClient(UUID id, UpdateClientRequest request) {
         Client client = getClientById(id);
 
@@ -126,22 +166,102 @@ public class ClientService {
                             .toList());
         }
 
-        return clientRepository.save(client);
+        client = clientRepository.save(client);
+        resourceVersions.bump(SecurityUtils.getCurrentOrganizationId(), ResourceType.CLIENTS);
+        return client;
     }
 
     public void deleteClient(UUID id) {
         if (!clientRepository.existsById(id)) {
             throw new HttpClientErrorException(HttpStatus.NOT_FOUND, "error.client.not.found");
         }
+        entityTagService.removeAllEntityTags("CLIENT", id);
+        entityCustomFieldService.removeAllEntityCustomFields("CLIENT", id);
         clientRepository.deleteById(id);
+        organizationClientCounts.invalidate(SecurityUtils.getCurrentOrganizationId());
+        resourceVersions.bump(SecurityUtils.getCurrentOrganizationId(), ResourceType.CLIENTS);
+    }
+
+    /** Drops the cached client total of the organization after clients were added or removed in bulk. */
+    public void evictClientCount(UUID orgId) {
+        organizationClientCounts.invalidate(orgId);
     }
 
     @Transactional(readOnly = true)
-    public Page<Client> searchClients(SearchClientsRequest request) {
+    public Page<ListRow> searchClients(SearchClientsRequest request) {
         UUID orgId = SecurityUtils.getCurrentOrganizationId();
 
+        boolean similarity = isSimilaritySearch(request);
+        Specification<Client> spec = searchSpecification(request);
+
+        // Similarity searches rank by relevance unless a sort is requested explicitly
+        String sortBy = request.getSortBy() != null ? request.getSortBy() : similarity ? null : "createdAt";
+        String order = request.getOrder() != null ? request.getOrder().getValue() : "desc";
+        LookaheadPage<ListRow> slice;
+        if (request.getCursor() != null) {
+            PaginationUtils.Seek<Client> seek = PaginationUtils.getSeek(spec, request.getCursor(), request.getSize(),
+                    request.getOrder() != null ? order : null, request.getSortBy());
+            slice = clientRepository.findListRows(seek.spec(), seek.pageable());
+        } else {
+            slice = clientRepository.findListRows(spec,
+                    PaginationUtils.getPageable(request.getPage(), request.getSize(), order, sortBy));
+        }
+
+        String countMode = request.getCountMode() != null ? request.getCountMode().getValue() : "estimate";
+        return switch (countMode) {
+            case "exact" -> slice.withTotal(clientRepository.count(spec), true);
+            case "none" -> slice;
+            default -> withEstimatedTotal(slice, spec, orgId, isFiltered(request), request.getCursor() != null);
+        };
+    }
+
+    /**
+     * Counts of matching clients per tag and per option of the requested SELECT / MULTI_SELECT
+     * custom fields, over the whole filtered set rather than the current page.
+     */
+    @Transactional(readOnly = true)
+    public ClientFacets getFacets(SearchClientsRequest request) {
+        UUID orgId = SecurityUtils.getCurrentOrganizationId();
+        ClientSearchFacetsRequest facets = request.getFacets();
+        SearchClientsRequest filters = new SearchClientsRequest()
+                .query(request.getQuery())
+                .searchMode(request.getSearchMode())
+                .type(request.getType())
+                .isActive(request.getIsActive())
+                .tagIds(request.getTagIds())
+                .customFieldFilters(request.getCustomFieldFilters())
+                .facets(facets);
+        return facetCounts.get(new FacetKey(orgId, filters), key -> {
+            Specification<Client> spec = searchSpecification(request);
+            Map<UUID, Long> tagCounts = Boolean.TRUE.equals(facets.getTags())
+                    ? clientRepository.countByTag(spec) : Map.of();
+
+            Map<UUID, List<String>> optionsByField = new LinkedHashMap<>();
+            if (facets.getCustomFieldIds() != null) {
+                for (UUID fieldId : facets.getCustomFieldIds()) {
+                    CustomFieldDefinition def = customFieldCache.getDefinition(orgId, fieldId)
+                            .orElseThrow(() -> new HttpClientErrorException(HttpStatus.NOT_FOUND, "error.custom_field.not.found"));
+                    if (def.getOptions() != null && ("SELECT".equals(def.getFieldType())
+                            || "MULTI_SELECT".equals(def.getFieldType()))) {
+                        optionsByField.put(fieldId, def.getOptions());
+                    }
+                }
+            }
+            return new ClientFacets(tagCounts, clientRepository.countByOption(spec, optionsByField));
+        });
+    }
+
+    /**
+     * Filters of a client search (organization, query, type, status, tags and custom fields),
+     * shared by paged search and export.
+     */
+    @Transactional(readOnly = true)
+    public Specification<Client> searchSpecification(SearchClientsRequest request) {
+        UUID orgId = SecurityUtils.getCurrentOrganizationId();
         Specification<Client> spec = Specification.where(EntityFilterSpecifications.<Client>hasOrganization(orgId))
-                .and(EntityFilterSpecifications.textSearch(request.getQuery(), "name", "email"));
+                .and(isSimilaritySearch(request)
+                        ? EntityFilterSpecifications.similaritySearch(request.getQuery(), "name", "email")
+                        : EntityFilterSpecifications.textSearch(request.getQuery(), "name", "email"));
 
         if (request.getType() != null) {
             spec = spec.and((root, cq, cb) -> cb.equal(root.get("type"), request.getType()));
@@ -155,15 +275,45 @@ public class ClientService {
         if (request.getCustomFieldFilters() != null) {
             for (CustomFieldFilter cf : request.getCustomFieldFilters()) {
                 if (cf.getFieldId() == null || cf.getOp() == null) continue;
-                CustomFieldDefinition def = customFieldService.getDefinitionById(cf.getFieldId());
+                CustomFieldDefinition def = customFieldCache.getDefinition(orgId, cf.getFieldId())
+                        .orElseThrow(() -> new HttpClientErrorException(HttpStatus.NOT_FOUND, "error.custom_field.not.found"));
                 spec = spec.and(EntityFilterSpecifications.customFieldFilter(
-                        cf.getFieldId(), def.getFieldType(), cf.getOp().getValue(), cf.getValue()));
+                        def, cf.getOp().getValue(), cf.getValue()));
             }
         }
+        return spec;
+    }
 
-        String sortBy = request.getSortBy() != null ? request.getSortBy() : "createdAt";
-        String order = request.getOrder() != null ? request.getOrder().getValue() : "desc";
-        Pageable pageable = PaginationUtils.getPageable(request.getPage(), request.getSize(), order, sortBy);
-        return clientRepository.findAll(spec, pageable);
+    static boolean isSimilaritySearch(SearchClientsRequest request) {
+        return request.getSearchMode() != null && "similarity".equals(request.getSearchMode().getValue());
+    }
+
+    /**
+     * Total for the default "estimate" count mode, avoiding a full COUNT over the filtered set:
+     * exact once the last offset page is reached, otherwise the cached per-organization client
+     * count for unfiltered searches, or a count that stops at {@code app.clients.count-cap}.
+     */
+    private LookaheadPage<ListRow> withEstimatedTotal(LookaheadPage<ListRow> slice, Specification<Client> spec,
+                                                     UUID orgId, boolean filtered, boolean seek) {
+        if (!seek && !slice.hasNext() && (slice.hasContent() || slice.isFirst())) {
+            return slice.withTotal(slice.getTotalElements(), true);
+        }
+        if (!filtered) {
+            return slice.withTotal(organizationClientCounts.get(orgId, clientRepository::countByOrganizationId), false);
+        }
+        long counted = clientRepository.countAtMost(spec, countCap);
+        return slice.withTotal(counted, counted < countCap);
+    }
+
+    public record ClientFacets(Map<UUID, Long> tagCounts, Map<UUID, Map<String, Long>> optionCounts) {}
+
+    private record FacetKey(UUID orgId, SearchClientsRequest filters) {}
+
+    private static boolean isFiltered(SearchClientsRequest request) {
+        return (request.getQuery() != null && !request.getQuery().isBlank())
+                || request.getType() != null
+                || request.getIsActive() != null
+                || (request.getTagIds() != null && !request.getTagIds().isEmpty())
+                || (request.getCustomFieldFilters() != null && !request.getCustomFieldFilters().isEmpty());
     }
 }
@@ -0,0 +1,77 @@
+package com.kfdlabs.asap.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Builds per-field partial GIN indexes for very hot custom fields
+ * ({@code app.custom-fields.indexed-field-ids}). Such an index only holds the values of
+ * one field, so containment filters on it don't have to sift through every other field's
+ * entries in idx_cfv_value.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CustomFieldIndexService {
+
+    private final DataSource dataSource;
+
+    @Value("${app.custom-fields.indexed-field-ids:}")
+    private List<UUID> indexedFieldIds;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureHotFieldIndexes() {
+        for (UUID fieldId : indexedFieldIds) {
+            try {
+                createPartialIndex(fieldId);
+            } catch (Exception e) {
+                log.error("Failed to create partial index for custom field {}", fieldId, e);
+            }
+        }
+    }
+
+    /**
+     * CREATE INDEX CONCURRENTLY can't run inside a transaction, so this goes through a plain
+     * auto-commit connection. The field id comes from a parsed UUID, so inlining it is safe.
+     * A failed concurrent build leaves an INVALID index behind that IF NOT EXISTS would keep
+     * skipping, so such a leftover is dropped first and the index is built again.
+     */
+    public void createPartialIndex(UUID fieldId) throws Exception {
+        String indexName = "idx_cfv_hot_" + fieldId.toString().replace("-", "");
+        String sql = "CREATE INDEX CONCURRENTLY IF NOT EXISTS " + indexName
+                + " ON custom_field_values USING GIN (value jsonb_path_ops)"
+                + " WHERE custom_field_id = '" + fieldId + "'";
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(true);
+            if (isInvalid(connection, indexName)) {
+                log.warn("Dropping invalid partial index {} for custom field {}", indexName, fieldId);
+                statement.execute("DROP INDEX CONCURRENTLY IF EXISTS " + indexName);
+            }
+            statement.execute(sql);
+            log.info("Ensured partial index {} for custom field {}", indexName, fieldId);
+        }
+    }
+
+    private static boolean isInvalid(Connection connection, String indexName) throws Exception {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT NOT indisvalid FROM pg_index WHERE indexrelid = to_regclass(?)")) {
+            ps.setString(1, indexName);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+}
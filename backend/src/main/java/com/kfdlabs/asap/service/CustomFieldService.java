@@ -1,5 +1,9 @@
 package com.kfdlabs.asap.service;
 
+import com.kfdlabs.asap.cache.CustomFieldCache;
+import com.kfdlabs.asap.cache.InUseCache;
+import com.kfdlabs.asap.cache.ResourceVersions;
+import com.kfdlabs.asap.cache.ResourceVersions.ResourceType;
 import com.kfdlabs.asap.dto.CreateCustomFieldDefinitionRequest;
 import com.kfdlabs.asap.dto.CreateCustomFieldGroupRequest;
 import com.kfdlabs.asap.dto.UpdateCustomFieldDefinitionRequest;
@@ -12,9 +16,11 @@ import com.kfdlabs.asap.repository.CustomFieldGroupMemberRepository;
 import com.kfdlabs.asap.repository.CustomFieldGroupRepository;
 import com.kfdlabs.asap.repository.CustomFieldValueRepository;
 import com.kfdlabs.asap.security.SecurityUtils;
+import com.kfdlabs.asap.specification.EntityFilterSpecifications;
 import com.kfdlabs.asap.util.PaginationUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -34,6 +40,9 @@ public class CustomFieldService {
     private final CustomFieldGroupRepository groupRepository;
     private final CustomFieldGroupMemberRepository memberRepository;
     private final CustomFieldValueRepository cfvRepository;
+    private final CustomFieldCache customFieldCache;
+    private final InUseCache inUseCache;
+    private final ResourceVersions resourceVersions;
 
     // ---- Definitions ----
 
@@ -52,12 +61,17 @@ public class CustomFieldService {
         def.setIsRequired(request.getIsRequired() != null ? request.getIsRequired() : false);
         def.setOptions(request.getOptions());
         def.setDisplayOrder(request.getDisplayOrder() != null ? request.getDisplayOrder() : 0);
-        return definitionRepository.save(def);
+        def = definitionRepository.save(def);
+        customFieldCache.invalidate(orgId);
+        resourceVersions.bump(orgId, ResourceType.CUSTOM_FIELDS);
+        return def;
     }
 
     @Transactional(readOnly = true)
     public CustomFieldDefinition getDefinitionById(UUID id) {
+        // Served from the second-level cache, which row level security doesn't see
         return definitionRepository.findById(id)
+                .filter(def -> def.getOrganizationId().equals(SecurityUtils.getCurrentOrganizationId()))
                 .orElseThrow(() -> new HttpClientErrorException(HttpStatus.NOT_FOUND, "error.custom_field.not.found"));
     }
 
@@ -67,8 +81,11 @@ public class CustomFieldService {
         if (request.getFieldLabel() != null && !request.getFieldLabel().equals(undefined())) {
             def.setFieldLabel(request.getFieldLabel().orElse(""));
         }
+        boolean typeChanged = false;
         if (request.getFieldType() != null && !request.getFieldType().equals(undefined())) {
-            def.setFieldType(request.getFieldType().get().getValue());
+            String newType = request.getFieldType().get().getValue();
+            typeChanged = !newType.equals(def.getFieldType());
+            def.setFieldType(newType);
         }
         if (request.getIsRequired() != null && !request.getIsRequired().equals(undefined())) {
             def.setIsRequired(request.getIsRequired().orElse(false));
@@ -79,7 +96,13 @@ public class CustomFieldService {
         if (request.getDisplayOrder() != null && !request.getDisplayOrder().equals(undefined())) {
             def.setDisplayOrder(request.getDisplayOrder().orElse(0));
         }
-        return definitionRepository.save(def);
+        CustomFieldDefinition saved = definitionRepository.saveAndFlush(def);
+        if (typeChanged) {
+            cfvRepository.refreshTypedValues(saved.getId());
+        }
+        customFieldCache.invalidate(saved.getOrganizationId());
+        resourceVersions.bump(saved.getOrganizationId(), ResourceType.CUSTOM_FIELDS);
+        return saved;
     }
 
     public void deleteDefinition(UUID id) {
@@ -87,11 +110,21 @@ public class CustomFieldService {
             throw new HttpClientErrorException(HttpStatus.NOT_FOUND, "error.custom_field.not.found");
         }
         definitionRepository.deleteById(id);
+        customFieldCache.invalidate(SecurityUtils.getCurrentOrganizationId());
+        resourceVersions.bump(SecurityUtils.getCurrentOrganizationId(), ResourceType.CUSTOM_FIELDS);
+        inUseCache.invalidateFields(SecurityUtils.getCurrentOrganizationId());
     }
 
     @Transactional(readOnly = true)
-    public Page<CustomFieldDefinition> findAllDefinitions(String query, Integer page, Integer size, String sortBy, String order) {
+    public Page<CustomFieldDefinition> findAllDefinitions(String query, Integer page, Integer size, String sortBy,
+                                                          String order, String cursor) {
         UUID orgId = SecurityUtils.getCurrentOrganizationId();
+        if (cursor != null) {
+            return PaginationUtils.getCursorSlice(definitionRepository,
+                    EntityFilterSpecifications.<CustomFieldDefinition>hasOrganization(orgId)
+                            .and(EntityFilterSpecifications.textSearch(query, "fieldLabel", "fieldKey")),
+                    cursor, size, order, sortBy);
+        }
         return definitionRepository.findAll(orgId, query == null ? "" : query,
                 PaginationUtils.getPageable(page, size, order, sortBy));
     }
@@ -103,25 +136,9 @@ public class CustomFieldService {
     @Transactional(readOnly = true)
     public List<CustomFieldDefinition> findDistinctDefinitionsInUse(String entityType) {
         UUID orgId = SecurityUtils.getCurrentOrganizationId();
-        Set<UUID> inUseIds = new HashSet<>(cfvRepository.findDistinctFieldIdsInUse(orgId));
-        if (inUseIds.isEmpty()) return List.of();
-
-        // If entityType specified, restrict to fields belonging to groups of that type
-        if (entityType != null && !entityType.isBlank()) {
-            Set<UUID> fieldIdsForEntityType = new HashSet<>();
-            Page<CustomFieldGroup> groups = groupRepository.findAll(orgId, "", entityType,
-                    PaginationUtils.getPageable(0, 500, null));
-            for (CustomFieldGroup group : groups.getContent()) {
-                List<CustomFieldGroupMember> members = memberRepository.findByCustomFieldGroupIdOrderByDisplayOrder(group.getId());
-                for (CustomFieldGroupMember m : members) {
-                    fieldIdsForEntityType.add(m.getCustomFieldDefinition().getId());
-                }
-            }
-            inUseIds.retainAll(fieldIdsForEntityType);
-            if (inUseIds.isEmpty()) return List.of();
-        }
-
-        return definitionRepository.findAllById(inUseIds).stream()
+        return inUseCache.getFieldIdsInUse(orgId, entityType).stream()
+                .map(id -> customFieldCache.getDefinition(orgId, id))
+                .flatMap(Optional::stream)
                 .sorted(Comparator.comparing(CustomFieldDefinition::getFieldLabel))
                 .toList();
     }
@@ -145,17 +162,22 @@ public class CustomFieldService {
         if (request.getFieldIds() != null) {
             syncMembers(group, request.getFieldIds(), orgId);
         }
+        customFieldCache.invalidate(orgId);
+        resourceVersions.bump(orgId, ResourceType.CUSTOM_FIELDS);
+        inUseCache.invalidateFields(orgId);
         return group;
     }
 
     @Transactional(readOnly = true)
     public CustomFieldGroup getGroupById(UUID id) {
         return groupRepository.findById(id)
+                .filter(group -> group.getOrganizationId().equals(SecurityUtils.getCurrentOrganizationId()))
                 .orElseThrow(() -> new HttpClientErrorException(HttpStatus.NOT_FOUND, "error.custom_field_group.not.found"));
     }
 
+    /** Members of the group in display order, served from the organization's {@link CustomFieldCache} snapshot. */
     public List<CustomFieldGroupMember> getGroupMembers(UUID groupId) {
-        return memberRepository.findByCustomFieldGroupIdOrderByDisplayOrder(groupId);
+        return customFieldCache.getGroupMembers(SecurityUtils.getCurrentOrganizationId(), groupId);
     }
 
     public CustomFieldGroup updateGroup(UUID id, UpdateCustomFieldGroupRequest request) {
@@ -178,7 +200,11 @@ public class CustomFieldService {
             List<UUID> newFieldIds = request.getFieldIds().orElse(List.of());
             syncMembers(group, newFieldIds, orgId);
         }
-        return groupRepository.save(group);
+        group = groupRepository.save(group);
+        customFieldCache.invalidate(orgId);
+        resourceVersions.bump(orgId, ResourceType.CUSTOM_FIELDS);
+        inUseCache.invalidateFields(orgId);
+        return group;
     }
 
     public void deleteGroup(UUID id) {
@@ -186,11 +212,23 @@ public class CustomFieldService {
             throw new HttpClientErrorException(HttpStatus.NOT_FOUND, "error.custom_field_group.not.found");
         }
         groupRepository.deleteById(id);
+        customFieldCache.invalidate(SecurityUtils.getCurrentOrganizationId());
+        resourceVersions.bump(SecurityUtils.getCurrentOrganizationId(), ResourceType.CUSTOM_FIELDS);
+        inUseCache.invalidateFields(SecurityUtils.getCurrentOrganizationId());
     }
 
     @Transactional(readOnly = true)
-    public Page<CustomFieldGroup> findAllGroups(String query, String entityType, Integer page, Integer size, String sortBy, String order) {
+    public Page<CustomFieldGroup> findAllGroups(String query, String entityType, Integer page, Integer size,
+                                                String sortBy, String order, String cursor) {
         UUID orgId = SecurityUtils.getCurrentOrganizationId();
+        if (cursor != null) {
+            Specification<CustomFieldGroup> spec = EntityFilterSpecifications.<CustomFieldGroup>hasOrganization(orgId)
+                    .and(EntityFilterSpecifications.textSearch(query, "name"));
+            if (entityType != null && !entityType.isBlank()) {
+                spec = spec.and((root, cq, cb) -> cb.equal(root.get("entityType"), entityType));
+            }
+            return PaginationUtils.getCursorSlice(groupRepository, spec, cursor, size, order, sortBy);
+        }
         return groupRepository.findAll(orgId, query == null ? "" : query,
                 entityType == null ? "" : entityType,
                 PaginationUtils.getPageable(page, size, order, sortBy));
@@ -2,13 +2,15 @@ package com.kfdlabs.asap.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.kfdlabs.asap.entity.CustomFieldDefinition;
+import com.kfdlabs.asap.cache.InUseCache;
+import com.kfdlabs.asap.cache.ResourceVersions;
+import com.kfdlabs.asap.cache.ResourceVersions.ResourceType;
 import com.kfdlabs.asap.entity.CustomFieldGroup;
 import com.kfdlabs.asap.entity.CustomFieldValue;
 import com.kfdlabs.asap.entity.EntityCustomFieldGroup;
-import com.kfdlabs.asap.repository.CustomFieldDefinitionRepository;
 import com.kfdlabs.asap.repository.CustomFieldGroupRepository;
 import com.kfdlabs.asap.repository.CustomFieldValueRepository;
+import com.kfdlabs.asap.repository.CustomFieldValueRepositoryCustom;
 import com.kfdlabs.asap.repository.EntityCustomFieldGroupRepository;
 import com.kfdlabs.asap.security.SecurityUtils;
 import lombok.RequiredArgsConstructor;
@@ -28,36 +30,68 @@ public class EntityCustomFieldService {
     private final EntityCustomFieldGroupRepository ecfgRepository;
     private final CustomFieldValueRepository cfvRepository;
     private final CustomFieldGroupRepository customFieldGroupRepository;
-    private final CustomFieldDefinitionRepository customFieldDefinitionRepository;
+    private final InUseCache inUseCache;
+    private final ResourceVersions resourceVersions;
 
     @Transactional(readOnly = true)
     public List<CustomFieldValue> getEntityCustomFieldValues(UUID entityId) {
         return cfvRepository.findByEntityId(entityId);
     }
 
+    @Transactional(readOnly = true)
+    public Map<UUID, List<CustomFieldValue>> getEntityCustomFieldValuesBatch(List<UUID> entityIds) {
+        if (entityIds.isEmpty()) return Map.of();
+        return cfvRepository.findByEntityIdIn(entityIds).stream()
+                .collect(Collectors.groupingBy(CustomFieldValue::getEntityId));
+    }
+
+    /**
+     * Writes the given values for an entity in one upsert; a {@code null} value removes the field's
+     * value instead. Inputs for fields that aren't defined in the organization are ignored, and
+     * when a field is listed more than once the last input wins.
+     */
     public void setEntityCustomFieldValues(UUID entityId, List<CustomFieldValueInput> values) {
         UUID orgId = SecurityUtils.getCurrentOrganizationId();
         if (values == null || values.isEmpty()) return;
 
+        Map<UUID, Object> latest = new LinkedHashMap<>();
         for (CustomFieldValueInput input : values) {
-            String jsonValue = toJsonb(input.value());
-            Optional<CustomFieldValue> existing = cfvRepository
-                    .findByCustomFieldDefinitionIdAndEntityId(input.customFieldId(), entityId);
-            if (existing.isPresent()) {
-                CustomFieldValue cfv = existing.get();
-                cfv.setValue(jsonValue);
-                cfvRepository.save(cfv);
+            latest.put(input.customFieldId(), input.value());
+        }
+        List<UUID> removed = new ArrayList<>();
+        List<CustomFieldValueRepositoryCustom.ValueRow> rows = new ArrayList<>();
+        latest.forEach((fieldId, value) -> {
+            if (value == null) {
+                removed.add(fieldId);
             } else {
-                CustomFieldDefinition def = customFieldDefinitionRepository
-                        .findById(input.customFieldId()).orElse(null);
-                if (def == null) continue;
-                CustomFieldValue cfv = new CustomFieldValue();
-                cfv.setOrganizationId(orgId);
-                cfv.setCustomFieldDefinition(def);
-                cfv.setEntityId(entityId);
-                cfv.setValue(jsonValue);
-                cfvRepository.save(cfv);
+                rows.add(new CustomFieldValueRepositoryCustom.ValueRow(entityId, fieldId, toJsonb(value)));
             }
+        });
+
+        removeEntityCustomFieldValues(entityId, removed);
+        if (cfvRepository.upsertValues(orgId, rows) > 0) {
+            inUseCache.invalidateFields(orgId);
+            resourceVersions.bump(orgId, ResourceType.CUSTOM_FIELD_VALUES);
+        }
+    }
+
+    public void removeEntityCustomFieldValues(UUID entityId, Collection<UUID> customFieldIds) {
+        if (customFieldIds == null || customFieldIds.isEmpty()) return;
+        if (cfvRepository.deleteByEntityIdAndFieldIds(entityId, customFieldIds) > 0) {
+            inUseCache.invalidateFields(SecurityUtils.getCurrentOrganizationId());
+            resourceVersions.bump(SecurityUtils.getCurrentOrganizationId(), ResourceType.CUSTOM_FIELD_VALUES);
+        }
+    }
+
+    /** Drops the entity's custom field values and group assignments, e.g. when the entity itself is deleted. */
+    public void removeAllEntityCustomFields(String entityType, UUID entityId) {
+        int removed = cfvRepository.deleteByEntityId(entityId);
+        if (removed > 0) {
+            inUseCache.invalidateFields(SecurityUtils.getCurrentOrganizationId());
+        }
+        removed += ecfgRepository.deleteByEntityTypeAndEntityId(entityType, entityId);
+        if (removed > 0) {
+            resourceVersions.bump(SecurityUtils.getCurrentOrganizationId(), ResourceType.CUSTOM_FIELD_VALUES);
         }
     }
 
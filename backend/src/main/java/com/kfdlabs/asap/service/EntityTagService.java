@@ -1,13 +1,17 @@
 package com.kfdlabs.asap.service;
 
+import com.kfdlabs.asap.cache.InUseCache;
+import com.kfdlabs.asap.cache.ResourceVersions;
+import com.kfdlabs.asap.cache.ResourceVersions.ResourceType;
 import com.kfdlabs.asap.entity.EntityTag;
 import com.kfdlabs.asap.entity.Tag;
 import com.kfdlabs.asap.repository.EntityTagRepository;
-import com.kfdlabs.asap.repository.TagRepository;
 import com.kfdlabs.asap.security.SecurityUtils;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.HttpClientErrorException;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -17,49 +21,77 @@ import java.util.stream.Collectors;
 @Transactional
 public class EntityTagService {
 
+    /** Upper bound on entities per {@link #bulkUpdateTags} call. */
+    public static final int MAX_BULK_ENTITIES = 100_000;
+
+    /** Bulk statements are issued per chunk of entities to keep array parameters and row locks bounded. */
+    private static final int BULK_CHUNK_SIZE = 10_000;
+
     private final EntityTagRepository entityTagRepository;
-    private final TagRepository tagRepository;
+    private final InUseCache inUseCache;
+    private final ResourceVersions resourceVersions;
 
-    public List<EntityTag> setEntityTags(String entityType, UUID entityId, List<UUID> tagIds) {
+    /**
+     * Replaces the entity's tags with {@code tagIds}: one DELETE for the tags no longer wanted and
+     * one INSERT for the new ones. Tag ids outside the current organization are ignored.
+     */
+    public void setEntityTags(String entityType, UUID entityId, List<UUID> tagIds) {
         UUID orgId = SecurityUtils.getCurrentOrganizationId();
-        List<EntityTag> existing = entityTagRepository.findByEntityTypeAndEntityId(entityType, entityId);
-        Set<UUID> existingTagIds = existing.stream()
-                .map(et -> et.getTag().getId())
-                .collect(Collectors.toSet());
         Set<UUID> desiredTagIds = tagIds != null ? new LinkedHashSet<>(tagIds) : Set.of();
+        int changed = entityTagRepository.removeTagsExcept(orgId, entityType, entityId, desiredTagIds)
+                + entityTagRepository.addTags(orgId, entityType, List.of(entityId), desiredTagIds);
+        if (changed > 0) {
+            inUseCache.invalidateTags(orgId);
+            resourceVersions.bump(orgId, ResourceType.TAG_LINKS);
+        }
+    }
 
-        // Remove tags no longer in the desired list
-        existing.stream()
-                .filter(et -> !desiredTagIds.contains(et.getTag().getId()))
-                .forEach(entityTagRepository::delete);
+    /** Drops every tag assignment of an entity, e.g. when the entity itself is deleted. */
+    public void removeAllEntityTags(String entityType, UUID entityId) {
+        if (entityTagRepository.deleteByEntityTypeAndEntityId(entityType, entityId) > 0) {
+            inUseCache.invalidateTags(SecurityUtils.getCurrentOrganizationId());
+            resourceVersions.bump(SecurityUtils.getCurrentOrganizationId(), ResourceType.TAG_LINKS);
+        }
+    }
 
-        // Add new tags
-        List<EntityTag> result = new ArrayList<>(existing.stream()
-                .filter(et -> desiredTagIds.contains(et.getTag().getId()))
-                .toList());
+    /**
+     * Adds and removes tags across many entities of one type. Returns the number of
+     * assignments created and deleted. Fails with 404 if any entity does not exist in the
+     * current organization.
+     */
+    public BulkTagResult bulkUpdateTags(String entityType, List<UUID> entityIds,
+                                        List<UUID> addTagIds, List<UUID> removeTagIds) {
+        UUID orgId = SecurityUtils.getCurrentOrganizationId();
+        Set<UUID> entities = new LinkedHashSet<>(entityIds);
+        if (entities.size() > MAX_BULK_ENTITIES) {
+            throw new HttpClientErrorException(HttpStatus.BAD_REQUEST, "error.tags.bulk.too.many.entities");
+        }
+        Set<UUID> toAdd = addTagIds != null ? new LinkedHashSet<>(addTagIds) : Set.of();
+        Set<UUID> toRemove = removeTagIds != null ? new LinkedHashSet<>(removeTagIds) : Set.of();
 
-        for (UUID tagId : desiredTagIds) {
-            if (!existingTagIds.contains(tagId)) {
-                Tag tag = tagRepository.findById(tagId).orElse(null);
-                if (tag == null) continue;
-                EntityTag et = new EntityTag();
-                et.setOrganizationId(orgId);
-                et.setTag(tag);
-                et.setEntityType(entityType);
-                et.setEntityId(entityId);
-                result.add(entityTagRepository.save(et));
+        long added = 0;
+        long removed = 0;
+        List<UUID> ids = new ArrayList<>(entities);
+        for (int from = 0; from < ids.size(); from += BULK_CHUNK_SIZE) {
+            List<UUID> chunk = ids.subList(from, Math.min(from + BULK_CHUNK_SIZE, ids.size()));
+            Set<UUID> owned = entityTagRepository.findOwnedEntityIds(orgId, entityType, chunk);
+            if (owned.size() < chunk.size()) {
+                UUID missing = chunk.stream().filter(id -> !owned.contains(id)).findFirst().orElseThrow();
+                throw new HttpClientErrorException(HttpStatus.NOT_FOUND, "error.tags.bulk.entity.not.found|" + missing);
             }
+            removed += entityTagRepository.removeTags(orgId, entityType, chunk, toRemove);
+            added += entityTagRepository.addTags(orgId, entityType, chunk, toAdd);
+        }
+        if (added + removed > 0) {
+            inUseCache.invalidateTags(orgId);
+            resourceVersions.bump(orgId, ResourceType.TAG_LINKS);
         }
-        return result;
+        return new BulkTagResult(added, removed);
     }
 
     @Transactional(readOnly = true)
     public List<Tag> getDistinctTagsInUse(String entityType) {
-        UUID orgId = SecurityUtils.getCurrentOrganizationId();
-        if (entityType != null && !entityType.isBlank()) {
-            return entityTagRepository.findDistinctTagsByEntityType(entityType, orgId);
-        }
-        return entityTagRepository.findDistinctTagsInUse(orgId);
+        return inUseCache.getTagsInUse(SecurityUtils.getCurrentOrganizationId(), entityType);
     }
 
     @Transactional(readOnly = true)
@@ -71,4 +103,6 @@ public class EntityTagService {
                 Collectors.mapping(EntityTag::getTag, Collectors.toList())
         ));
     }
+
+    public record BulkTagResult(long added, long removed) {}
 }
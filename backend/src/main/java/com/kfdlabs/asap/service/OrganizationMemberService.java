@@ -1,5 +1,6 @@
 package com.kfdlabs.asap.service;
 
+import com.kfdlabs.asap.cache.PrincipalCache;
 import com.kfdlabs.asap.dto.AddOrganizationMemberRequest;
 import com.kfdlabs.asap.dto.UpdateOrganizationMemberRequest;
 import com.kfdlabs.asap.entity.Organization;
@@ -9,6 +10,7 @@ import com.kfdlabs.asap.entity.User;
 import com.kfdlabs.asap.repository.OrganizationMemberRepository;
 import com.kfdlabs.asap.repository.OrganizationRepository;
 import com.kfdlabs.asap.repository.UserRepository;
+import com.kfdlabs.asap.security.TokenRevocationList;
 import com.kfdlabs.asap.util.PaginationUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -30,6 +32,8 @@ public class OrganizationMemberService {
     private final OrganizationMemberRepository organizationMemberRepository;
     private final OrganizationRepository organizationRepository;
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final TokenRevocationList tokenRevocationList;
 
     public OrganizationMember addMember(UUID organizationId, AddOrganizationMemberRequest request) {
         Organization org = organizationRepository.findById(organizationId)
@@ -49,7 +53,9 @@ public class OrganizationMemberService {
         member.setRole(OrganizationRole.fromString(request.getRole().getValue()));
         member.setIsActive(true);
 
-        return organizationMemberRepository.save(member);
+        member = organizationMemberRepository.save(member);
+        principalCache.invalidate(user.getId());
+        return member;
     }
 
     public OrganizationMember updateMember(UUID organizationId, UUID memberId, UpdateOrganizationMemberRequest request) {
@@ -77,7 +83,9 @@ public class OrganizationMemberService {
             member.setIsActive(request.getIsActive());
         }
 
-        return organizationMemberRepository.save(member);
+        member = organizationMemberRepository.save(member);
+        principalCache.invalidate(member.getUser().getId());
+        return member;
     }
 
     public void removeMember(UUID organizationId, UUID memberId) {
@@ -99,6 +107,9 @@ public class OrganizationMemberService {
         }
 
         organizationMemberRepository.delete(member);
+        principalCache.invalidate(member.getUser().getId());
+        // Also ends refresh tokens for this organization, which would otherwise keep minting access tokens
+        tokenRevocationList.revokeAll(member.getUser().getId(), organizationId);
     }
 
     public Page<OrganizationMember> listMembers(UUID organizationId, String query, String role, Boolean isActive,
@@ -1,5 +1,8 @@
 package com.kfdlabs.asap.service;
 
+import com.kfdlabs.asap.cache.InUseCache;
+import com.kfdlabs.asap.cache.ResourceVersions;
+import com.kfdlabs.asap.cache.ResourceVersions.ResourceType;
 import com.kfdlabs.asap.dto.CreateTagGroupRequest;
 import com.kfdlabs.asap.dto.CreateTagRequest;
 import com.kfdlabs.asap.dto.UpdateTagGroupRequest;
@@ -12,6 +15,7 @@ import com.kfdlabs.asap.repository.TagGroupMemberRepository;
 import com.kfdlabs.asap.repository.TagGroupRepository;
 import com.kfdlabs.asap.repository.TagRepository;
 import com.kfdlabs.asap.security.SecurityUtils;
+import com.kfdlabs.asap.specification.EntityFilterSpecifications;
 import com.kfdlabs.asap.util.PaginationUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -34,6 +38,8 @@ public class TagService {
     private final TagRepository tagRepository;
     private final TagGroupMemberRepository tagGroupMemberRepository;
     private final EntityTagRepository entityTagRepository;
+    private final InUseCache inUseCache;
+    private final ResourceVersions resourceVersions;
 
     // ---- Tag Groups ----
 
@@ -54,12 +60,15 @@ public class TagService {
         if (request.getTagIds() != null) {
             syncMembers(group, request.getTagIds(), orgId);
         }
+        resourceVersions.bump(orgId, ResourceType.TAGS);
         return group;
     }
 
     @Transactional(readOnly = true)
     public TagGroup getTagGroupById(UUID id) {
+        // Served from the second-level cache, which row level security doesn't see
         return tagGroupRepository.findById(id)
+                .filter(group -> group.getOrganizationId().equals(SecurityUtils.getCurrentOrganizationId()))
                 .orElseThrow(() -> new HttpClientErrorException(HttpStatus.NOT_FOUND, "error.tag_group.not.found"));
     }
 
@@ -67,6 +76,13 @@ public class TagService {
         return tagGroupMemberRepository.findByTagGroupIdOrderByDisplayOrder(groupId);
     }
 
+    @Transactional(readOnly = true)
+    public Map<UUID, List<TagGroupMember>> getTagGroupMembersBatch(List<UUID> groupIds) {
+        if (groupIds.isEmpty()) return Map.of();
+        return tagGroupMemberRepository.findByTagGroupIdInOrderByDisplayOrder(groupIds).stream()
+                .collect(Collectors.groupingBy(m -> m.getTagGroup().getId()));
+    }
+
     public TagGroup updateTagGroup(UUID id, UpdateTagGroupRequest request) {
         TagGroup group = getTagGroupById(id);
         UUID orgId = SecurityUtils.getCurrentOrganizationId();
@@ -90,7 +106,9 @@ public class TagService {
             List<UUID> newTagIds = request.getTagIds().orElse(List.of());
             syncMembers(group, newTagIds, orgId);
         }
-        return tagGroupRepository.save(group);
+        group = tagGroupRepository.save(group);
+        resourceVersions.bump(orgId, ResourceType.TAGS);
+        return group;
     }
 
     public void deleteTagGroup(UUID id) {
@@ -98,6 +116,7 @@ public class TagService {
             throw new HttpClientErrorException(HttpStatus.NOT_FOUND, "error.tag_group.not.found");
         }
         tagGroupRepository.deleteById(id);
+        resourceVersions.bump(SecurityUtils.getCurrentOrganizationId(), ResourceType.TAGS);
     }
 
     @Transactional(readOnly = true)
@@ -121,12 +140,15 @@ public class TagService {
         tag.setOrganizationId(orgId);
         tag.setName(request.getName());
         tag.setColor(request.getColor());
-        return tagRepository.save(tag);
+        tag = tagRepository.save(tag);
+        resourceVersions.bump(orgId, ResourceType.TAGS);
+        return tag;
     }
 
     @Transactional(readOnly = true)
     public Tag getTagById(UUID id) {
         return tagRepository.findById(id)
+                .filter(tag -> tag.getOrganizationId().equals(SecurityUtils.getCurrentOrganizationId()))
                 .orElseThrow(() -> new HttpClientErrorException(HttpStatus.NOT_FOUND, "error.tag.not.found"));
     }
 
@@ -146,7 +168,10 @@ public class TagService {
         if (request.getColor() != null && !request.getColor().equals(undefined())) {
             tag.setColor(request.getColor().orElse(null));
         }
-        return tagRepository.save(tag);
+        tag = tagRepository.save(tag);
+        inUseCache.invalidateTags(orgId);
+        resourceVersions.bump(orgId, ResourceType.TAGS);
+        return tag;
     }
 
     public void deleteTag(UUID id) {
@@ -154,11 +179,19 @@ public class TagService {
             throw new HttpClientErrorException(HttpStatus.NOT_FOUND, "error.tag.not.found");
         }
         tagRepository.deleteById(id);
+        inUseCache.invalidateTags(SecurityUtils.getCurrentOrganizationId());
+        resourceVersions.bump(SecurityUtils.getCurrentOrganizationId(), ResourceType.TAGS);
     }
 
     @Transactional(readOnly = true)
-    public Page<Tag> findAllTags(String query, Integer page, Integer size, String sortBy, String order) {
+    public Page<Tag> findAllTags(String query, Integer page, Integer size, String sortBy, String order, String cursor) {
         UUID orgId = SecurityUtils.getCurrentOrganizationId();
+        if (cursor != null) {
+            return PaginationUtils.getCursorSlice(tagRepository,
+                    EntityFilterSpecifications.<Tag>hasOrganization(orgId)
+                            .and(EntityFilterSpecifications.textSearch(query, "name")),
+                    cursor, size, order, sortBy);
+        }
         return tagRepository.findAll(orgId, query == null ? "" : query,
                 PaginationUtils.getPageable(page, size, order, sortBy));
     }
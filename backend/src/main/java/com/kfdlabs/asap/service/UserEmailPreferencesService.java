@@ -3,6 +3,7 @@ package com.kfdlabs.asap.service;
 import com.kfdlabs.asap.entity.UserEmailPreferences;
 import com.kfdlabs.asap.repository.UserEmailPreferencesRepository;
 import com.kfdlabs.asap.security.JwtUtil;
+import com.kfdlabs.asap.security.VerifiedToken;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -43,14 +44,12 @@ public class UserEmailPreferencesService {
     }
 
     public String validateAndExtractEmailFromToken(String token) {
-        if (!jwtUtil.validateToken(token)) {
-            throw new HttpClientErrorException(BAD_REQUEST, "error.token.invalid");
-        }
-        String type = jwtUtil.getTokenType(token);
-        if (!"preferences".equals(type)) {
+        VerifiedToken verified = jwtUtil.verify(token)
+                .orElseThrow(() -> new HttpClientErrorException(BAD_REQUEST, "error.token.invalid"));
+        if (!"preferences".equals(verified.type())) {
             throw new HttpClientErrorException(BAD_REQUEST, "error.token.invalid.type");
         }
-        return jwtUtil.getEmailFromToken(token);
+        return verified.email();
     }
 
     @Transactional(readOnly = true)
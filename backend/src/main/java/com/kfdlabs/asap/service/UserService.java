@@ -1,5 +1,6 @@
 package com.kfdlabs.asap.service;
 
+import com.kfdlabs.asap.cache.PrincipalCache;
 import com.kfdlabs.asap.dto.CreateUserRequest;
 import com.kfdlabs.asap.dto.UpdateUserRequest;
 import com.kfdlabs.asap.entity.Organization;
@@ -11,15 +12,16 @@ import com.kfdlabs.asap.repository.OrganizationMemberRepository;
 import com.kfdlabs.asap.repository.OrganizationRepository;
 import com.kfdlabs.asap.repository.UserAuthMethodsRepository;
 import com.kfdlabs.asap.repository.UserRepository;
+import com.kfdlabs.asap.security.PasswordHasher;
 import com.kfdlabs.asap.security.SecurityUtils;
+import com.kfdlabs.asap.specification.EntityFilterSpecifications;
 import com.kfdlabs.asap.util.PaginationUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.HttpClientErrorException;
@@ -40,10 +42,8 @@ public class UserService {
     private final OrganizationRepository organizationRepository;
     private final TwoFactorService twoFactorService;
     private final UserAuthMethodsRepository userAuthMethodsRepository;
-
-    @Lazy
-    @Autowired
-    private PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
+    private final PasswordHasher passwordHasher;
 
     @Autowired
     private EmailService emailService;
@@ -101,6 +101,7 @@ public class UserService {
                     .ifPresent(member -> {
                         member.setRole(newRole);
                         organizationMemberRepository.save(member);
+                        principalCache.invalidate(id);
                     });
         }
 
@@ -202,12 +203,12 @@ public class UserService {
 
         if (user.getPasswordHash() != null) {
             var oldPassword = request.getOldPassword();
-            if (oldPassword == null || !passwordEncoder.matches(oldPassword, user.getPasswordHash())) {
+            if (oldPassword == null || !passwordHasher.matches(oldPassword, user.getPasswordHash())) {
                 throw new HttpClientErrorException(HttpStatus.BAD_REQUEST, "error.password.incorrect");
             }
         }
 
-        setUserPassword(email, passwordEncoder.encode(request.getNewPassword()));
+        setUserPassword(email, passwordHasher.encode(request.getNewPassword()));
 
         var authMethods = userAuthMethodsRepository.findByEmail(email).orElseGet(() -> {
             var m = new UserAuthMethods();
@@ -288,6 +289,7 @@ public class UserService {
         }
         user.setIsActive(false);
         userRepository.save(user);
+        principalCache.invalidate(id);
     }
 
     public Page<User> findAllUsers(String query, Integer page, Integer size, String sortBy, String order) {
@@ -297,8 +299,14 @@ public class UserService {
         );
     }
 
-    public Page<User> findUsersByOrganization(UUID organizationId, String query,
-                                               Integer page, Integer size, String sortBy, String order) {
+    public Page<User> findUsersByOrganization(UUID organizationId, String query, Integer page, Integer size,
+                                              String sortBy, String order, String cursor) {
+        if (cursor != null) {
+            Specification<User> spec = EntityFilterSpecifications.<User>isActiveMemberOf(organizationId)
+                    .and((root, cq, cb) -> cb.isTrue(root.get("isActive")))
+                    .and(EntityFilterSpecifications.textSearch(query, "email", "firstName", "lastName"));
+            return PaginationUtils.getCursorSlice(userRepository, spec, cursor, size, order, sortBy);
+        }
         return userRepository.findUsersByOrganization(
                 organizationId,
                 query == null ? "" : query,
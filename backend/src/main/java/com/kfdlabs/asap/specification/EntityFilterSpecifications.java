@@ -1,20 +1,35 @@
 package com.kfdlabs.asap.specification;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kfdlabs.asap.entity.CustomFieldDefinition;
 import com.kfdlabs.asap.entity.CustomFieldValue;
 import com.kfdlabs.asap.entity.EntityTag;
+import com.kfdlabs.asap.entity.OrganizationMember;
+import com.kfdlabs.asap.util.PageCursor;
 import jakarta.persistence.criteria.*;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 /**
  * Reusable JPA Specification builders for filtering entities.
- * Custom field filters use native SQL functions to handle PostgreSQL JSONB values.
+ * Custom field filters use native SQL functions to handle PostgreSQL JSONB values;
+ * NUMBER, DATE and BOOLEAN filters go through the typed value_* shadow columns and
+ * SELECT / MULTI_SELECT filters through JSONB containment, so both can be index-served.
  */
 public final class EntityFilterSpecifications {
 
+    private static final ObjectMapper JSON = new ObjectMapper();
+
     private EntityFilterSpecifications() {}
 
     // ---- Generic filters ----
@@ -34,6 +49,36 @@ public final class EntityFilterSpecifications {
         };
     }
 
+    /**
+     * Fuzzy (trigram) search: lower(field) % lower(query) ORed across fields, served by the
+     * *_trgm indexes (see 006-trigram-search.sql). Unless the query is explicitly sorted,
+     * results come back by best similarity first; count and aggregate queries built from the
+     * same spec drop that order again.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Specification<T> similaritySearch(String query, String... fields) {
+        return (root, cq, cb) -> {
+            if (query == null || query.isBlank()) return cb.conjunction();
+            Expression<String> q = cb.literal(query.toLowerCase());
+            List<Expression<String>> lowered = Arrays.stream(fields)
+                    .map(f -> cb.lower(root.get(f)))
+                    .toList();
+            // Entity queries and row projections alike; counts and aggregates clear it
+            if (!Long.class.equals(cq.getResultType())) {
+                Expression<?>[] similarities = lowered.stream()
+                        .map(f -> cb.function("similarity", Double.class, f, q))
+                        .toArray(Expression[]::new);
+                Expression<Double> relevance = similarities.length == 1
+                        ? (Expression<Double>) similarities[0]
+                        : cb.function("greatest", Double.class, similarities);
+                cq.orderBy(cb.desc(relevance), cb.asc(root.get("id")));
+            }
+            return cb.or(lowered.stream()
+                    .map(f -> cb.isTrue(cb.function("trgm_match", Boolean.class, f, q)))
+                    .toArray(Predicate[]::new));
+        };
+    }
+
     public static <T> Specification<T> hasAnyTag(List<UUID> tagIds, String entityType) {
         return (root, cq, cb) -> {
             if (tagIds == null || tagIds.isEmpty()) return cb.conjunction();
@@ -49,19 +94,71 @@ public final class EntityFilterSpecifications {
         };
     }
 
+    /**
+     * Users holding an active membership in the organization.
+     */
+    public static <T> Specification<T> isActiveMemberOf(UUID orgId) {
+        return (root, cq, cb) -> {
+            Subquery<UUID> sub = cq.subquery(UUID.class);
+            Root<OrganizationMember> omRoot = sub.from(OrganizationMember.class);
+            sub.select(omRoot.get("id"));
+            sub.where(
+                    cb.equal(omRoot.get("user").get("id"), root.get("id")),
+                    cb.equal(omRoot.get("organization").get("id"), orgId),
+                    cb.isTrue(omRoot.get("isActive"))
+            );
+            return cb.exists(sub);
+        };
+    }
+
+    /**
+     * Rows strictly after the cursor in (sort key, id) order. Mirrors Postgres' default NULL
+     * placement (last ascending, first descending); the redundant bound on the key lets the
+     * (organization_id, key, id) indexes start the scan at the cursor.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <T> Specification<T> seekAfter(PageCursor cursor) {
+        return (root, cq, cb) -> {
+            Path<Comparable> key = root.get(cursor.sortBy());
+            Comparable value = (Comparable) cursor.typedKey(key.getJavaType());
+            Path<UUID> id = root.get("id");
+            boolean desc = cursor.isDescending();
+            Predicate idAfter = desc ? cb.lessThan(id, cursor.id()) : cb.greaterThan(id, cursor.id());
+
+            if (value == null) {
+                Predicate nullsAfter = cb.and(cb.isNull(key), idAfter);
+                return desc ? cb.or(nullsAfter, cb.isNotNull(key)) : nullsAfter;
+            }
+            Predicate bound = desc ? cb.lessThanOrEqualTo(key, value) : cb.greaterThanOrEqualTo(key, value);
+            Predicate keyAfter = desc ? cb.lessThan(key, value) : cb.greaterThan(key, value);
+            Predicate seek = cb.and(bound, cb.or(keyAfter, cb.and(cb.equal(key, value), idAfter)));
+            boolean nullable = root.getModel().getSingularAttribute(cursor.sortBy()).isOptional();
+            return !desc && nullable ? cb.or(seek, cb.isNull(key)) : seek;
+        };
+    }
+
     // ---- Custom field filters (per data type) ----
 
     /**
      * Build a custom field filter specification based on field type.
      * Dispatches to the right handler for each JSONB value shape.
      */
+    public static <T> Specification<T> customFieldFilter(CustomFieldDefinition def, String op, Object value) {
+        return customFieldFilter(def.getId(), def.getFieldType(), def.getOptions(), op, value);
+    }
+
+    /**
+     * Same as {@link #customFieldFilter(CustomFieldDefinition, String, Object)}; {@code options}
+     * lets SELECT / MULTI_SELECT filters match an option case-insensitively while still
+     * probing the index with its stored spelling.
+     */
     public static <T> Specification<T> customFieldFilter(
-            UUID fieldId, String fieldType, String op, Object value) {
+            UUID fieldId, String fieldType, List<String> options, String op, Object value) {
         return switch (fieldType) {
             case "NUMBER" -> customFieldNumber(fieldId, op, value);
             case "BOOLEAN" -> customFieldBoolean(fieldId, value);
-            case "SELECT" -> customFieldSelect(fieldId, value);
-            case "MULTI_SELECT" -> customFieldMultiSelect(fieldId, String.valueOf(value));
+            case "SELECT" -> customFieldSelect(fieldId, options, value);
+            case "MULTI_SELECT" -> customFieldMultiSelect(fieldId, options, value);
             case "DATE" -> customFieldDate(fieldId, op, String.valueOf(value));
             // TEXT, URL, EMAIL, PHONE, FILE — all string types use contains
             default -> customFieldStringContains(fieldId, String.valueOf(value));
@@ -79,92 +176,100 @@ public final class EntityFilterSpecifications {
     }
 
     /**
-     * Number comparison: (value #>> '{}')::numeric op ?
-     * Since we can't easily do #>> in JPA, we compare JSONB directly:
-     * - eq: value = to_jsonb(123::numeric)
-     * - gt/gte/lt/lte: use function-based numeric extraction
+     * Number comparison against the typed {@code value_number} shadow column,
+     * served by idx_cfv_number (custom_field_id, value_number, entity_id).
      */
     private static <T> Specification<T> customFieldNumber(UUID fieldId, String op, Object value) {
-        double numValue;
-        if (value instanceof Number n) {
-            numValue = n.doubleValue();
+        BigDecimal numValue;
+        if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            // NaN and infinities have no BigDecimal, and no stored value compares to them
+            if (!Double.isFinite(d)) {
+                throw new HttpClientErrorException(HttpStatus.BAD_REQUEST, "error.filter.number.invalid");
+            }
+            numValue = new BigDecimal(value.toString());
+        } else if (value instanceof Number n) {
+            numValue = new BigDecimal(n.toString());
         } else {
             try {
-                numValue = Double.parseDouble(String.valueOf(value));
+                numValue = new BigDecimal(String.valueOf(value).trim());
             } catch (NumberFormatException e) {
-                numValue = 0;
+                numValue = BigDecimal.ZERO;
             }
         }
 
-        if ("eq".equals(op)) {
-            double finalNum = numValue;
-            return cfvExists(fieldId, (cfvRoot, cb) -> {
-                Expression<String> asText = jsonbToText(cfvRoot, cb);
-                return cb.equal(asText, String.valueOf(finalNum));
-            });
-        }
-
-        double finalNumValue = numValue;
+        BigDecimal finalNumValue = numValue;
         return cfvExists(fieldId, (cfvRoot, cb) -> {
-            Expression<String> asText = jsonbToText(cfvRoot, cb);
-            Expression<Double> asDouble = asText.as(Double.class);
+            Expression<BigDecimal> typed = cfvRoot.get("valueNumber");
             return switch (op) {
-                case "gt" -> cb.gt(asDouble, finalNumValue);
-                case "gte" -> cb.ge(asDouble, finalNumValue);
-                case "lt" -> cb.lt(asDouble, finalNumValue);
-                case "lte" -> cb.le(asDouble, finalNumValue);
-                default -> cb.equal(asDouble, finalNumValue);
+                case "gt" -> cb.gt(typed, finalNumValue);
+                case "gte" -> cb.ge(typed, finalNumValue);
+                case "lt" -> cb.lt(typed, finalNumValue);
+                case "lte" -> cb.le(typed, finalNumValue);
+                default -> cb.equal(typed, finalNumValue);
             };
         });
     }
 
     /**
-     * Boolean: concat('', value) = 'true' or 'false'
-     * JSON booleans are bare words, so text extraction gives "true"/"false" directly.
+     * Boolean equality against the typed {@code value_boolean} shadow column.
      */
     private static <T> Specification<T> customFieldBoolean(UUID fieldId, Object value) {
         boolean boolValue = value instanceof Boolean b ? b : Boolean.parseBoolean(String.valueOf(value));
-        return cfvExists(fieldId, (cfvRoot, cb) -> {
-            Expression<String> asText = jsonbToText(cfvRoot, cb);
-            return cb.equal(asText, String.valueOf(boolValue));
-        });
+        return cfvExists(fieldId, (cfvRoot, cb) -> cb.equal(cfvRoot.get("valueBoolean"), boolValue));
     }
 
     /**
-     * Select (single value, case-insensitive exact match)
+     * Select (single value): value @> '"option"', served by the GIN index on value,
+     * with a case-insensitive fallback for values stored in another spelling.
      */
-    private static <T> Specification<T> customFieldSelect(UUID fieldId, Object value) {
-        String val = String.valueOf(value).toLowerCase();
-        return cfvExists(fieldId, (cfvRoot, cb) -> {
-            Expression<String> asText = jsonbToText(cfvRoot, cb);
-            return cb.equal(cb.lower(asText), "\"" + val + "\"");
-        });
+    private static <T> Specification<T> customFieldSelect(UUID fieldId, List<String> options, Object value) {
+        String probe = toJson(canonicalOption(options, String.valueOf(value)));
+        return cfvExists(fieldId, (cfvRoot, cb) -> optionContains(cfvRoot, cb, probe));
     }
 
     /**
-     * Multi-select (JSONB array contains): value::text LIKE '%"option"%'
+     * Multi-select (array contains any of the given options): value @> '["option"]',
+     * served by the GIN index on value, with the same case-insensitive fallback as SELECT.
      */
-    private static <T> Specification<T> customFieldMultiSelect(UUID fieldId, String value) {
-        return cfvExists(fieldId, (cfvRoot, cb) -> {
-            Expression<String> asText = jsonbToText(cfvRoot, cb);
-            String escaped = value.replace("\"", "\\\"");
-            return cb.like(asText, "%\"" + escaped + "\"%");
-        });
+    private static <T> Specification<T> customFieldMultiSelect(UUID fieldId, List<String> options, Object value) {
+        List<String> probes = (value instanceof Collection<?> c ? c.stream() : java.util.stream.Stream.of(value))
+                .map(v -> toJson(List.of(canonicalOption(options, String.valueOf(v)))))
+                .toList();
+        return cfvExists(fieldId, (cfvRoot, cb) -> cb.or(probes.stream()
+                .map(probe -> optionContains(cfvRoot, cb, probe))
+                .toArray(Predicate[]::new)));
     }
 
     /**
-     * Date comparison: value = to_jsonb('2024-01-15'::text) for eq,
-     * or string comparison for gt/lt (ISO dates sort lexicographically).
+     * Date comparison against the typed {@code value_date} shadow column,
+     * served by idx_cfv_date (custom_field_id, value_date, entity_id).
+     * Inputs that aren't ISO dates fall back to comparing the JSON-encoded string.
      */
     private static <T> Specification<T> customFieldDate(UUID fieldId, String op, String value) {
-        if ("eq".equals(op)) {
-            String val = value.toLowerCase();
-            return cfvExists(fieldId, (cfvRoot, cb) -> {
-                Expression<String> asText = jsonbToText(cfvRoot, cb);
-                return cb.equal(cb.lower(asText), "\"" + val + "\"");
-            });
+        LocalDate date;
+        try {
+            date = LocalDate.parse(value.length() > 10 ? value.substring(0, 10) : value);
+        } catch (DateTimeParseException e) {
+            return customFieldDateText(fieldId, op, value);
         }
 
+        return cfvExists(fieldId, (cfvRoot, cb) -> {
+            Expression<LocalDate> typed = cfvRoot.get("valueDate");
+            return switch (op) {
+                case "gt" -> cb.greaterThan(typed, date);
+                case "gte" -> cb.greaterThanOrEqualTo(typed, date);
+                case "lt" -> cb.lessThan(typed, date);
+                case "lte" -> cb.lessThanOrEqualTo(typed, date);
+                default -> cb.equal(typed, date);
+            };
+        });
+    }
+
+    /**
+     * String comparison on the JSON-encoded date (ISO dates sort lexicographically).
+     */
+    private static <T> Specification<T> customFieldDateText(UUID fieldId, String op, String value) {
         return cfvExists(fieldId, (cfvRoot, cb) -> {
             Expression<String> asText = jsonbToText(cfvRoot, cb);
             String jsonDate = "\"" + value + "\""; // compare against the JSON-encoded form
@@ -173,7 +278,7 @@ public final class EntityFilterSpecifications {
                 case "gte" -> cb.greaterThanOrEqualTo(asText, jsonDate);
                 case "lt" -> cb.lessThan(asText, jsonDate);
                 case "lte" -> cb.lessThanOrEqualTo(asText, jsonDate);
-                default -> cb.equal(asText, jsonDate);
+                default -> cb.equal(cb.lower(asText), jsonDate.toLowerCase());
             };
         });
     }
@@ -189,6 +294,42 @@ public final class EntityFilterSpecifications {
         return cb.function("jsonb_to_text", String.class, cfvRoot.get("value"));
     }
 
+    /**
+     * JSONB containment through the fn_jsonb_contains() wrapper (see 014-fn-jsonb-contains.sql),
+     * which Postgres inlines into {@code value @> probe} so GIN indexes on value apply.
+     */
+    private static Predicate jsonbContains(Root<CustomFieldValue> cfvRoot, CriteriaBuilder cb, String probeJson) {
+        return cb.isTrue(cb.function("fn_jsonb_contains", Boolean.class, cfvRoot.get("value"), cb.literal(probeJson)));
+    }
+
+    /**
+     * Option containment: the indexed probe with the option's current spelling, or-ed with
+     * fn_jsonb_contains_ci() (see 017-fn-jsonb-contains-ci.sql) so values stored in another
+     * case, for example before the option was renamed, keep matching.
+     */
+    private static Predicate optionContains(Root<CustomFieldValue> cfvRoot, CriteriaBuilder cb, String probeJson) {
+        return cb.or(
+                jsonbContains(cfvRoot, cb, probeJson),
+                cb.isTrue(cb.function("fn_jsonb_contains_ci", Boolean.class, cfvRoot.get("value"), cb.literal(probeJson))));
+    }
+
+    /**
+     * Resolves a filter value to the option's stored spelling (options are matched
+     * case-insensitively); unknown values are passed through unchanged.
+     */
+    private static String canonicalOption(List<String> options, String value) {
+        if (options == null) return value;
+        return options.stream().filter(value::equalsIgnoreCase).findFirst().orElse(value);
+    }
+
+    private static String toJson(Object value) {
+        try {
+            return JSON.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
     /**
      * Builds an EXISTS subquery on custom_field_values with a custom predicate on the value.
      */
@@ -0,0 +1,51 @@
+package com.kfdlabs.asap.util;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Collects keys and resolves them with one batch call, DataLoader style: callers
+ * {@link #register} every key they are about to need, and the first {@link #load} of a
+ * key not yet resolved fetches all pending keys together. Resolved values are kept for the
+ * loader's lifetime (one request, see {@code AssociationLoaders}); not thread-safe.
+ */
+public final class BatchLoader<K, V> {
+
+    private final Function<Set<K>, Map<K, V>> batchFunction;
+    private final V defaultValue;
+    private final Set<K> pending = new LinkedHashSet<>();
+    private final Map<K, V> resolved = new HashMap<>();
+
+    /**
+     * @param batchFunction resolves a set of keys in one call; keys missing from its result
+     *                      resolve to {@code defaultValue}
+     */
+    public BatchLoader(Function<Set<K>, Map<K, V>> batchFunction, V defaultValue) {
+        this.batchFunction = batchFunction;
+        this.defaultValue = defaultValue;
+    }
+
+    public BatchLoader<K, V> register(Collection<? extends K> keys) {
+        for (K key : keys) {
+            if (!resolved.containsKey(key)) pending.add(key);
+        }
+        return this;
+    }
+
+    public V load(K key) {
+        if (!resolved.containsKey(key)) {
+            pending.add(key);
+            dispatch();
+        }
+        return resolved.get(key);
+    }
+
+    private void dispatch() {
+        Set<K> keys = new LinkedHashSet<>(pending);
+        pending.clear();
+        Map<K, V> values = batchFunction.apply(keys);
+        for (K key : keys) {
+            resolved.put(key, values.getOrDefault(key, defaultValue));
+        }
+    }
+}
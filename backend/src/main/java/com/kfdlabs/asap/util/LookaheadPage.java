@@ -0,0 +1,52 @@
+package com.kfdlabs.asap.util;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * A page whose "has next" comes from over-fetching one row rather than from a total, as read
+ * by cursor seeks and count-free searches. The total is attached separately and may be exact,
+ * estimated, or missing altogether.
+ */
+public class LookaheadPage<T> extends PageImpl<T> {
+
+    private final boolean hasNext;
+    private final Boolean totalExact;
+
+    public LookaheadPage(List<T> content, Pageable pageable, boolean hasNext) {
+        this(content, pageable, pageable.isPaged() ? pageable.getOffset() + content.size() : content.size(),
+                hasNext, null);
+    }
+
+    private LookaheadPage(List<T> content, Pageable pageable, long total, boolean hasNext, Boolean totalExact) {
+        super(content, pageable, total);
+        this.hasNext = hasNext;
+        this.totalExact = totalExact;
+    }
+
+    /**
+     * Same rows with a total attached; {@code exact} tells whether it was counted or estimated.
+     */
+    public LookaheadPage<T> withTotal(long total, boolean exact) {
+        return new LookaheadPage<>(getContent(), getPageable(), total, hasNext, exact);
+    }
+
+    /**
+     * True when the total was counted, false when estimated, null when no total was computed.
+     */
+    public Boolean getTotalExact() {
+        return totalExact;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    @Override
+    public boolean isLast() {
+        return !hasNext;
+    }
+}
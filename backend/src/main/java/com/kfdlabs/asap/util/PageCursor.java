@@ -0,0 +1,82 @@
+package com.kfdlabs.asap.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position of a keyset (seek) page: the sort the page was read with plus the sort key and
+ * id of its last row. Handed to clients as an opaque URL-safe token.
+ */
+public record PageCursor(String sortBy, String order, String key, UUID id) {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    public static PageCursor of(Object entity, Sort.Order order) {
+        BeanWrapper bean = PropertyAccessorFactory.forBeanPropertyAccess(entity);
+        return of(bean.getPropertyValue(order.getProperty()), (UUID) bean.getPropertyValue("id"), order);
+    }
+
+    /** Cursor after a row known only by its sort key and id, as read by projections. */
+    public static PageCursor of(Object key, UUID id, Sort.Order order) {
+        return new PageCursor(order.getProperty(), order.getDirection().name().toLowerCase(),
+                key == null ? null : key instanceof Enum<?> e ? e.name() : key.toString(), id);
+    }
+
+    public static PageCursor decode(String token) {
+        try {
+            PageCursor cursor = JSON.readValue(Base64.getUrlDecoder().decode(token), PageCursor.class);
+            if (cursor.sortBy() == null || cursor.order() == null || cursor.id() == null) {
+                throw new IllegalArgumentException("incomplete cursor");
+            }
+            return cursor;
+        } catch (Exception e) {
+            throw new HttpClientErrorException(HttpStatus.BAD_REQUEST, "error.cursor.invalid");
+        }
+    }
+
+    public String encode() {
+        try {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(JSON.writeValueAsString(this).getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to encode page cursor", e);
+        }
+    }
+
+    public boolean isDescending() {
+        return Sort.Direction.DESC.name().equalsIgnoreCase(order);
+    }
+
+    /**
+     * Converts the stored key back to the Java type of the sort attribute.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Object typedKey(Class<?> type) {
+        if (key == null) return null;
+        try {
+            if (type == String.class) return key;
+            if (type == LocalDateTime.class) return LocalDateTime.parse(key);
+            if (type == LocalDate.class) return LocalDate.parse(key);
+            if (type == UUID.class) return UUID.fromString(key);
+            if (type == Integer.class || type == int.class) return Integer.valueOf(key);
+            if (type == Long.class || type == long.class) return Long.valueOf(key);
+            if (type == BigDecimal.class) return new BigDecimal(key);
+            if (type == Boolean.class || type == boolean.class) return Boolean.valueOf(key);
+            if (type.isEnum()) return Enum.valueOf((Class<? extends Enum>) type, key);
+        } catch (RuntimeException e) {
+            throw new HttpClientErrorException(HttpStatus.BAD_REQUEST, "error.cursor.invalid");
+        }
+        throw new HttpClientErrorException(HttpStatus.BAD_REQUEST, "error.cursor.invalid");
+    }
+}
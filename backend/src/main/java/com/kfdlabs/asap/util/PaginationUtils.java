@@ -1,10 +1,18 @@
 
 package com.kfdlabs.asap.util;
 
+import com.kfdlabs.asap.specification.EntityFilterSpecifications;
 import lombok.experimental.UtilityClass;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
 
+import java.util.List;
 import java.util.Objects;
 
 import static java.util.Arrays.stream;
@@ -45,4 +53,60 @@ public class PaginationUtils {
         Sort.Direction direction = isNotBlank(order) && DESC.name().equalsIgnoreCase(order) ? DESC : ASC;
         return of(page, limit, direction, sort);
     }
+
+    /**
+     * Keyset (seek) page: reads the rows after {@code cursor} in (sort key, id) order, so the
+     * cost doesn't grow with depth. {@code sortBy} / {@code order} default to the cursor's own
+     * and must match it when given. A cursor only exists past the first page, whose total the
+     * client already has, so no total is counted ({@link #isTotalExact} is null).
+     */
+    public static <T> LookaheadPage<T> getCursorSlice(JpaSpecificationExecutor<T> repository, Specification<T> spec,
+                                                      String cursor, Integer limit, String order, String sortBy) {
+        Seek<T> seek = getSeek(spec, cursor, limit, order, sortBy);
+        int size = seek.pageable().getPageSize();
+        List<T> rows = repository.findBy(seek.spec(),
+                query -> query.sortBy(seek.pageable().getSort()).limit(size + 1).all());
+        boolean hasNext = rows.size() > size;
+        return new LookaheadPage<>(hasNext ? rows.subList(0, size) : rows, seek.pageable(), hasNext);
+    }
+
+    /** Filter and first page of a keyset seek, for repositories that read the rows themselves. */
+    public record Seek<T>(Specification<T> spec, Pageable pageable) {}
+
+    /**
+     * The rows after {@code cursor} as {@code spec} plus a first page sorted by (sort key, id);
+     * validated like {@link #getCursorSlice}.
+     */
+    public static <T> Seek<T> getSeek(Specification<T> spec, String cursor, Integer limit, String order, String sortBy) {
+        PageCursor position = PageCursor.decode(cursor);
+        if ((sortBy != null && !sortBy.equals(position.sortBy()))
+                || (isNotBlank(order) && !order.equalsIgnoreCase(position.order()))) {
+            throw new HttpClientErrorException(HttpStatus.BAD_REQUEST, "error.cursor.invalid");
+        }
+        int size = limit == null || limit < 1 ? DEFAULT_PAGEABLE_LIMIT : limit;
+        Sort.Direction direction = position.isDescending() ? DESC : ASC;
+        Sort sort = Sort.by(direction, position.sortBy()).and(Sort.by(direction, "id"));
+        return new Seek<>(spec.and(EntityFilterSpecifications.seekAfter(position)), PageRequest.of(0, size, sort));
+    }
+
+    /**
+     * Whether {@code page.getTotalElements()} was counted (true), estimated (false) or not
+     * computed at all (null).
+     */
+    public static Boolean isTotalExact(Page<?> page) {
+        return page instanceof LookaheadPage<?> lookahead ? lookahead.getTotalExact() : Boolean.TRUE;
+    }
+
+    /**
+     * Cursor for the page following {@code page}, or null on the last page or when the page
+     * isn't sorted. Works for offset pages too, so clients can switch to seeking at any point.
+     */
+    public static String getNextCursor(Page<?> page) {
+        if (!page.hasNext() || page.getContent().isEmpty()) {
+            return null;
+        }
+        return page.getSort().stream().findFirst()
+                .map(order -> PageCursor.of(page.getContent().get(page.getContent().size() - 1), order).encode())
+                .orElse(null);
+    }
 }
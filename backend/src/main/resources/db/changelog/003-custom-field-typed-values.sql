@@ -0,0 +1,60 @@
+--liquibase formatted sql
+
+--changeset system:003-custom-field-typed-value-functions splitStatements:false
+-- Lenient JSONB → scalar conversions used to backfill and refresh the typed
+-- shadow columns on custom_field_values. They return NULL instead of raising
+-- when a stored value doesn't fit the field type (e.g. after a type change).
+CREATE OR REPLACE FUNCTION fn_jsonb_to_numeric(val jsonb) RETURNS NUMERIC AS $$
+BEGIN
+    IF jsonb_typeof(val) NOT IN ('number', 'string') THEN
+        RETURN NULL;
+    END IF;
+    RETURN CAST(TRIM(val #>> '{}') AS NUMERIC);
+EXCEPTION WHEN others THEN
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql IMMUTABLE STRICT;
+
+CREATE OR REPLACE FUNCTION fn_jsonb_to_date(val jsonb) RETURNS DATE AS $$
+BEGIN
+    IF jsonb_typeof(val) <> 'string' THEN
+        RETURN NULL;
+    END IF;
+    RETURN CAST(LEFT(val #>> '{}', 10) AS DATE);
+EXCEPTION WHEN others THEN
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql IMMUTABLE STRICT;
+
+CREATE OR REPLACE FUNCTION fn_jsonb_to_boolean(val jsonb) RETURNS BOOLEAN AS $$
+BEGIN
+    IF jsonb_typeof(val) NOT IN ('boolean', 'string') THEN
+        RETURN NULL;
+    END IF;
+    RETURN CASE LOWER(val #>> '{}') WHEN 'true' THEN TRUE WHEN 'false' THEN FALSE END;
+END;
+$$ LANGUAGE plpgsql IMMUTABLE STRICT;
+
+--changeset system:003-custom-field-typed-value-columns
+-- Typed shadow columns next to the JSONB value. NUMBER / DATE / BOOLEAN filters
+-- compile against these so they can be answered from the composite indexes below
+-- instead of casting jsonb_to_text(value) row by row.
+ALTER TABLE custom_field_values
+    ADD COLUMN value_number  NUMERIC,
+    ADD COLUMN value_date    DATE,
+    ADD COLUMN value_boolean BOOLEAN;
+
+UPDATE custom_field_values cfv
+SET value_number  = CASE WHEN cfd.field_type = 'NUMBER' THEN fn_jsonb_to_numeric(cfv.value) END,
+    value_date    = CASE WHEN cfd.field_type = 'DATE' THEN fn_jsonb_to_date(cfv.value) END,
+    value_boolean = CASE WHEN cfd.field_type = 'BOOLEAN' THEN fn_jsonb_to_boolean(cfv.value) END
+FROM custom_field_definitions cfd
+WHERE cfd.id = cfv.custom_field_id
+  AND cfd.field_type IN ('NUMBER', 'DATE', 'BOOLEAN');
+
+CREATE INDEX idx_cfv_number ON custom_field_values (custom_field_id, value_number, entity_id)
+    WHERE value_number IS NOT NULL;
+CREATE INDEX idx_cfv_date ON custom_field_values (custom_field_id, value_date, entity_id)
+    WHERE value_date IS NOT NULL;
+CREATE INDEX idx_cfv_boolean ON custom_field_values (custom_field_id, value_boolean, entity_id)
+    WHERE value_boolean IS NOT NULL;
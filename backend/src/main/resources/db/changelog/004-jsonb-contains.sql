@@ -0,0 +1,10 @@
+--liquibase formatted sql
+
+--changeset system:004-jsonb-contains splitStatements:false
+-- Wrapper around the JSONB containment operator (val @> probe) so Criteria queries can
+-- reach it through cb.function(...). It is a plain, non-strict SQL function, so the planner
+-- inlines it back into "value @> probe::jsonb" and can answer SELECT / MULTI_SELECT
+-- filters with a bitmap scan on idx_cfv_value (or a per-field partial index).
+CREATE OR REPLACE FUNCTION jsonb_contains(val jsonb, probe text) RETURNS boolean AS $$
+    SELECT val @> probe::jsonb;
+$$ LANGUAGE sql IMMUTABLE;
@@ -0,0 +1,20 @@
+--liquibase formatted sql
+
+--changeset system:005-keyset-pagination-indexes
+-- Composite (organization_id, sort key, id) indexes backing cursor pagination:
+-- a cursor page seeks straight to (sort key, id) > (last key, last id) instead of
+-- walking OFFSET rows, so deep pages cost the same as the first one.
+CREATE INDEX idx_clients_org_created ON clients (organization_id, created_at, id);
+DROP INDEX idx_clients_name;
+CREATE INDEX idx_clients_org_name ON clients (organization_id, name, id);
+
+CREATE INDEX idx_tags_org_created ON tags (organization_id, created_at, id);
+CREATE INDEX idx_tags_org_name ON tags (organization_id, name, id);
+
+CREATE INDEX idx_cfd_org_created ON custom_field_definitions (organization_id, created_at, id);
+CREATE INDEX idx_cfd_org_label ON custom_field_definitions (organization_id, field_label, id);
+
+CREATE INDEX idx_cfg_org_created ON custom_field_groups (organization_id, created_at, id);
+CREATE INDEX idx_cfg_org_name ON custom_field_groups (organization_id, name, id);
+
+CREATE INDEX idx_users_created ON users (created_at, id);
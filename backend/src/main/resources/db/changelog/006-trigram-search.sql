@@ -0,0 +1,32 @@
+--liquibase formatted sql
+
+--changeset system:006-trigram-indexes
+-- Trigram GIN indexes on the lower()-ed columns behind the list searches, so
+-- "lower(col) LIKE '%q%'" (and the similarity operator) become bitmap index scans
+-- instead of sequential scans over the tenant's rows.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX idx_clients_name_trgm ON clients USING GIN (lower(name) gin_trgm_ops);
+CREATE INDEX idx_clients_email_trgm ON clients USING GIN (lower(email) gin_trgm_ops);
+
+CREATE INDEX idx_tags_name_trgm ON tags USING GIN (lower(name) gin_trgm_ops);
+CREATE INDEX idx_tag_groups_name_trgm ON tag_groups USING GIN (lower(name) gin_trgm_ops);
+
+CREATE INDEX idx_cfd_label_trgm ON custom_field_definitions USING GIN (lower(field_label) gin_trgm_ops);
+CREATE INDEX idx_cfd_key_trgm ON custom_field_definitions USING GIN (lower(field_key) gin_trgm_ops);
+CREATE INDEX idx_cfg_name_trgm ON custom_field_groups USING GIN (lower(name) gin_trgm_ops);
+
+CREATE INDEX idx_users_email_trgm ON users USING GIN (lower(email) gin_trgm_ops);
+CREATE INDEX idx_users_first_name_trgm ON users USING GIN (lower(first_name) gin_trgm_ops);
+CREATE INDEX idx_users_last_name_trgm ON users USING GIN (lower(last_name) gin_trgm_ops);
+
+CREATE INDEX idx_organizations_name_trgm ON organizations USING GIN (lower(name) gin_trgm_ops);
+CREATE INDEX idx_organizations_slug_trgm ON organizations USING GIN (lower(slug) gin_trgm_ops);
+
+--changeset system:006-trigram-match splitStatements:false
+-- Wrapper around the pg_trgm similarity operator (val % query) for Criteria queries, which
+-- can't express custom operators. Kept a plain SQL function so the planner inlines it and
+-- the trigram indexes above still apply. STABLE because "%" reads pg_trgm.similarity_threshold.
+CREATE OR REPLACE FUNCTION trgm_match(val text, query text) RETURNS boolean AS $$
+    SELECT val % query;
+$$ LANGUAGE sql STABLE;
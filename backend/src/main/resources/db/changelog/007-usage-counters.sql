@@ -0,0 +1,91 @@
+--liquibase formatted sql
+
+--changeset system:007-usage-counters splitStatements:false
+-- Reference counters for tags, custom fields and custom field groups, so list pages read one
+-- row per item instead of counting entity_tags / custom_field_values / entity_custom_field_groups.
+--
+--   subject_type  subject_id                   counts rows of
+--   TAG           tags.id                      entity_tags
+--   CUSTOM_FIELD  custom_field_definitions.id  custom_field_values
+--   FIELD_GROUP   custom_field_groups.id       entity_custom_field_groups
+--
+-- Tag group counts are the sum of their member tags' counters (see EntityTagRepository).
+-- Counters are kept by statement-level triggers in the same transaction as the link change, so a
+-- bulk statement touches each counter once. A counter row is removed when it drops to zero, which
+-- also cleans up after a tag, field or group is deleted (its links cascade through the triggers).
+CREATE TABLE usage_counters
+(
+    organization_id UUID        NOT NULL REFERENCES organizations (id) ON DELETE CASCADE,
+    subject_type    VARCHAR(20) NOT NULL CHECK (subject_type IN ('TAG', 'CUSTOM_FIELD', 'FIELD_GROUP')),
+    subject_id      UUID        NOT NULL,
+    reference_count BIGINT      NOT NULL DEFAULT 0,
+    PRIMARY KEY (subject_type, subject_id)
+);
+
+CREATE INDEX idx_usage_counters_org ON usage_counters (organization_id);
+
+ALTER TABLE usage_counters ENABLE ROW LEVEL SECURITY;
+CREATE POLICY usage_counters_org_isolation ON usage_counters
+    USING (organization_id = current_setting('app.current_org_id')::UUID);
+
+-- TG_ARGV[0] = subject_type, TG_ARGV[1] = column of the link table holding the subject id.
+-- Rows are applied in subject order so concurrent statements lock counters in the same order.
+CREATE OR REPLACE FUNCTION fn_usage_counters_insert() RETURNS TRIGGER AS $$
+BEGIN
+    EXECUTE FORMAT(
+        'INSERT INTO usage_counters (organization_id, subject_type, subject_id, reference_count)
+         SELECT organization_id, %L, %I, COUNT(*) FROM new_rows GROUP BY organization_id, %I ORDER BY %I
+         ON CONFLICT (subject_type, subject_id)
+         DO UPDATE SET reference_count = usage_counters.reference_count + EXCLUDED.reference_count',
+        TG_ARGV[0], TG_ARGV[1], TG_ARGV[1], TG_ARGV[1]);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION fn_usage_counters_delete() RETURNS TRIGGER AS $$
+BEGIN
+    EXECUTE FORMAT(
+        'UPDATE usage_counters uc SET reference_count = uc.reference_count - d.n
+         FROM (SELECT %I AS subject_id, COUNT(*) AS n FROM old_rows GROUP BY %I ORDER BY %I) d
+         WHERE uc.subject_type = %L AND uc.subject_id = d.subject_id',
+        TG_ARGV[1], TG_ARGV[1], TG_ARGV[1], TG_ARGV[0]);
+    EXECUTE FORMAT(
+        'DELETE FROM usage_counters
+         WHERE subject_type = %L AND reference_count <= 0 AND subject_id IN (SELECT %I FROM old_rows)',
+        TG_ARGV[0], TG_ARGV[1]);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_entity_tags_count_insert
+    AFTER INSERT ON entity_tags REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION fn_usage_counters_insert('TAG', 'tag_id');
+CREATE TRIGGER trg_entity_tags_count_delete
+    AFTER DELETE ON entity_tags REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION fn_usage_counters_delete('TAG', 'tag_id');
+
+CREATE TRIGGER trg_custom_field_values_count_insert
+    AFTER INSERT ON custom_field_values REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION fn_usage_counters_insert('CUSTOM_FIELD', 'custom_field_id');
+CREATE TRIGGER trg_custom_field_values_count_delete
+    AFTER DELETE ON custom_field_values REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION fn_usage_counters_delete('CUSTOM_FIELD', 'custom_field_id');
+
+CREATE TRIGGER trg_entity_custom_field_groups_count_insert
+    AFTER INSERT ON entity_custom_field_groups REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION fn_usage_counters_insert('FIELD_GROUP', 'custom_field_group_id');
+CREATE TRIGGER trg_entity_custom_field_groups_count_delete
+    AFTER DELETE ON entity_custom_field_groups REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION fn_usage_counters_delete('FIELD_GROUP', 'custom_field_group_id');
+
+-- Backfill from the existing links.
+INSERT INTO usage_counters (organization_id, subject_type, subject_id, reference_count)
+SELECT organization_id, 'TAG', tag_id, COUNT(*) FROM entity_tags GROUP BY organization_id, tag_id;
+
+INSERT INTO usage_counters (organization_id, subject_type, subject_id, reference_count)
+SELECT organization_id, 'CUSTOM_FIELD', custom_field_id, COUNT(*) FROM custom_field_values
+GROUP BY organization_id, custom_field_id;
+
+INSERT INTO usage_counters (organization_id, subject_type, subject_id, reference_count)
+SELECT organization_id, 'FIELD_GROUP', custom_field_group_id, COUNT(*) FROM entity_custom_field_groups
+GROUP BY organization_id, custom_field_group_id;
@@ -0,0 +1,16 @@
+--liquibase formatted sql
+
+--changeset system:008-resource-versions
+-- Change counter per organization and resource type, bumped by the services' write methods in the
+-- writing transaction and used to derive ETags for conditional GETs (see ResourceVersions).
+CREATE TABLE resource_versions
+(
+    organization_id UUID        NOT NULL REFERENCES organizations (id) ON DELETE CASCADE,
+    resource_type   VARCHAR(30) NOT NULL,
+    version         BIGINT      NOT NULL DEFAULT 0,
+    PRIMARY KEY (organization_id, resource_type)
+);
+
+ALTER TABLE resource_versions ENABLE ROW LEVEL SECURITY;
+CREATE POLICY resource_versions_org_isolation ON resource_versions
+    USING (organization_id = current_setting('app.current_org_id')::UUID);
@@ -0,0 +1,16 @@
+--liquibase formatted sql
+
+--changeset system:009-rate-limit-buckets
+-- Shared token buckets for rate limiting. Each node answers from in-process buckets and
+-- periodically pushes the tokens it consumed here in one statement, reading back the cluster-wide
+-- balance (see RateLimiter). Replaces the per-request bucket4j advisory lock table.
+CREATE TABLE rate_limit_buckets
+(
+    bucket_key BIGINT PRIMARY KEY,
+    tokens     DOUBLE PRECISION NOT NULL,
+    updated_at TIMESTAMPTZ      NOT NULL DEFAULT now()
+);
+
+CREATE INDEX idx_rate_limit_buckets_updated_at ON rate_limit_buckets (updated_at);
+
+DROP TABLE IF EXISTS bucket;
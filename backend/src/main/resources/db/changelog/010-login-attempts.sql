@@ -0,0 +1,15 @@
+--liquibase formatted sql
+
+--changeset system:010-login-attempts
+-- Failed login attempts per account (SHA-256 of the lowercased email) in the current window, and
+-- the lockout they caused. Nodes add their failures here in batches and read back the active
+-- lockouts (see PostgresLoginAttemptStore); expired rows are deleted periodically.
+CREATE TABLE login_attempts
+(
+    key_hash     VARCHAR(64) PRIMARY KEY,
+    failures     INTEGER     NOT NULL,
+    window_start TIMESTAMPTZ NOT NULL,
+    locked_until TIMESTAMPTZ
+);
+
+CREATE INDEX idx_login_attempts_locked_until ON login_attempts (locked_until) WHERE locked_until IS NOT NULL;
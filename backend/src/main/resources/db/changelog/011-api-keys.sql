@@ -0,0 +1,47 @@
+--liquibase formatted sql
+
+--changeset system:011-api-keys splitStatements:false
+-- Organization-scoped API keys. Only an HMAC of the key is stored; the prefix (the part of the key
+-- before the secret) identifies it and is what nodes cache by (see ApiKeyCache).
+CREATE TABLE api_keys
+(
+    id              UUID PRIMARY KEY      DEFAULT uuid_generate_v4(),
+    organization_id UUID         NOT NULL REFERENCES organizations (id) ON DELETE CASCADE,
+    name            VARCHAR(100) NOT NULL,
+    prefix          VARCHAR(16)  NOT NULL UNIQUE,
+    key_hash        VARCHAR(64)  NOT NULL,
+    scopes          TEXT[]       NOT NULL DEFAULT '{}',
+    created_by      UUID         REFERENCES users (id) ON DELETE SET NULL,
+    created_at      TIMESTAMP    NOT NULL DEFAULT NOW(),
+    expires_at      TIMESTAMP,
+    revoked_at      TIMESTAMP
+);
+
+CREATE INDEX idx_api_keys_organization ON api_keys (organization_id);
+
+ALTER TABLE api_keys ENABLE ROW LEVEL SECURITY;
+CREATE POLICY api_keys_org_isolation ON api_keys
+    USING (organization_id = current_setting('app.current_org_id')::UUID);
+
+-- Authentication resolves the key before any organization is known, so the lookup by prefix
+-- runs as the owner instead of under the caller's RLS context.
+CREATE FUNCTION fn_find_api_key(p_prefix VARCHAR)
+    RETURNS TABLE
+            (
+                id              UUID,
+                organization_id UUID,
+                key_hash        VARCHAR,
+                scopes          TEXT[],
+                expires_at      TIMESTAMP,
+                revoked_at      TIMESTAMP
+            )
+    LANGUAGE sql
+    STABLE
+    SECURITY DEFINER
+    SET search_path = public
+AS
+$$
+SELECT k.id, k.organization_id, k.key_hash, k.scopes, k.expires_at, k.revoked_at
+FROM api_keys k
+WHERE k.prefix = p_prefix
+$$;
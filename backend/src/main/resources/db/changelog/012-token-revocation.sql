@@ -0,0 +1,28 @@
+--liquibase formatted sql
+
+--changeset system:012-token-revocation
+-- Revoked JWTs by jti, kept until the token would have expired anyway (see TokenRevocationList).
+CREATE TABLE revoked_tokens
+(
+    jti        UUID PRIMARY KEY,
+    user_id    UUID        NOT NULL,
+    expires_at TIMESTAMPTZ NOT NULL,
+    revoked_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE INDEX idx_revoked_tokens_revoked_at ON revoked_tokens (revoked_at);
+CREATE INDEX idx_revoked_tokens_expires_at ON revoked_tokens (expires_at);
+
+-- Every token of a user issued up to issued_until is revoked, in one organization or, with a NULL
+-- organization_id, in all of them. Written on password reset and membership removal.
+CREATE TABLE token_revocation_cutoffs
+(
+    user_id         UUID        NOT NULL,
+    organization_id UUID,
+    issued_until    TIMESTAMPTZ NOT NULL,
+    updated_at      TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE UNIQUE INDEX ux_token_revocation_cutoffs
+    ON token_revocation_cutoffs (user_id, COALESCE(organization_id, '00000000-0000-0000-0000-000000000000'::uuid));
+CREATE INDEX idx_token_revocation_cutoffs_updated_at ON token_revocation_cutoffs (updated_at);
@@ -0,0 +1,7 @@
+--liquibase formatted sql
+
+--changeset system:013-login-attempts-updated-at
+-- Lets nodes pull only the lockouts changed since their last sync instead of every active one.
+ALTER TABLE login_attempts ADD COLUMN updated_at TIMESTAMPTZ NOT NULL DEFAULT now();
+
+CREATE INDEX idx_login_attempts_updated_at ON login_attempts (updated_at);
@@ -0,0 +1,10 @@
+--liquibase formatted sql
+
+--changeset system:014-fn-jsonb-contains splitStatements:false
+-- Replaces the jsonb_contains(jsonb, text) wrapper from 004 with an app-prefixed name, so calls
+-- can no longer resolve to the built-in pg_catalog.jsonb_contains(jsonb, jsonb) instead.
+CREATE OR REPLACE FUNCTION fn_jsonb_contains(val jsonb, probe text) RETURNS boolean AS $$
+    SELECT val @> probe::jsonb;
+$$ LANGUAGE sql IMMUTABLE;
+
+DROP FUNCTION IF EXISTS public.jsonb_contains(jsonb, text);
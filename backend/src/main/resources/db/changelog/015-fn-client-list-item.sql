@@ -0,0 +1,17 @@
+--liquibase formatted sql
+
+--changeset system:015-fn-client-list-item splitStatements:false
+-- ClientListItem JSON of one client row, so the search query can select each page row together
+-- with its id and sort key (ClientRepositoryImpl.findListRows) instead of loading entities and
+-- rendering them in a second statement. Timestamps are formatted like JacksonConfig writes them.
+CREATE OR REPLACE FUNCTION fn_client_list_item(id uuid, name text, type text, email text, phone text,
+                                               is_active boolean, created_at timestamp) RETURNS text AS $$
+    SELECT json_build_object(
+        'id', id, 'name', name, 'type', type, 'email', email, 'phone', phone, 'isActive', is_active,
+        'tags', COALESCE((
+            SELECT json_agg(json_build_object('id', t.id, 'name', t.name, 'color', t.color) ORDER BY t.name)
+            FROM entity_tags et
+            JOIN tags t ON t.id = et.tag_id
+            WHERE et.entity_type = 'CLIENT' AND et.entity_id = fn_client_list_item.id), '[]'::json),
+        'createdAt', to_char(created_at, 'YYYY-MM-DD"T"HH24:MI:SS"Z"'))::text;
+$$ LANGUAGE sql STABLE;
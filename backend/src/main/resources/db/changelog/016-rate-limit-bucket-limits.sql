@@ -0,0 +1,7 @@
+--liquibase formatted sql
+
+--changeset system:016-rate-limit-bucket-limits
+-- Carries each bucket's limit on the row, so a sync can refill and debit an existing bucket from
+-- EXCLUDED in a single INSERT ... ON CONFLICT DO UPDATE (see RateLimiter).
+ALTER TABLE rate_limit_buckets ADD COLUMN capacity          BIGINT           NOT NULL DEFAULT 0;
+ALTER TABLE rate_limit_buckets ADD COLUMN refill_per_second DOUBLE PRECISION NOT NULL DEFAULT 0;
@@ -0,0 +1,9 @@
+--liquibase formatted sql
+
+--changeset system:017-fn-jsonb-contains-ci splitStatements:false
+-- Case-insensitive counterpart of fn_jsonb_contains, so SELECT / MULTI_SELECT filters still match
+-- values stored before an option's spelling changed. Not index-served; it is OR-ed next to the
+-- indexed probe and only evaluated on the rows of the correlated field.
+CREATE OR REPLACE FUNCTION fn_jsonb_contains_ci(val jsonb, probe text) RETURNS boolean AS $$
+    SELECT lower(val::text)::jsonb @> lower(probe)::jsonb;
+$$ LANGUAGE sql IMMUTABLE;
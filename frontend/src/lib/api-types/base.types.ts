@@ -8,6 +8,7 @@ export interface PaginatedResponse<T> {
   size: number;
   totalElements: number;
   totalPages: number;
+  nextCursor?: string;
 }
 
 export interface Location {
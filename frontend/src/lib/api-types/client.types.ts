@@ -86,6 +86,12 @@ export interface SearchClientsRequest {
   size?: number;
   sortBy?: string;
   order?: "asc" | "desc";
+  cursor?: string;
+  searchMode?: "contains" | "similarity";
+  countMode?: "exact" | "estimate" | "none";
 }
 
-export type PaginatedClientsResponse = PaginatedResponse<ClientListItem>;
+export type PaginatedClientsResponse = PaginatedResponse<ClientListItem> & {
+  totalExact?: boolean;
+  hasNext?: boolean;
+};